@@ -0,0 +1,251 @@
+/* Batch of battle games.
+ * Many games are stored together in flat primitive arrays, one slice of
+ * 4*nbVals cards per game and per player, and are advanced in lock-step: each
+ * pass plays one round of every game still running, in three loops over them,
+ * which take the face-up cards, compare them all without branches, then settle
+ * the ties game by game, give the tricks to the decks of the winners selected by
+ * index and compact the list of the games still running. Only the comparison is
+ * a loop over contiguous arrays that the JIT can vectorize, the cards being read
+ * from and written to the ring buffers of the decks at indices depending on each
+ * game.
+ * Infinite games are detected as in Battle.game() with Brent's algorithm on the
+ * rolling hash of the decks.
+ */
+
+import java.util.random.RandomGenerator;
+
+class BattleBatch { // struct of arrays holding n games of nbVals values
+    private final int n; // number of games
+    private final int capacity; // number of cards of a game, size of each slice
+
+    // decks of the players, the deck 2*g+p is the deck of player p+1 in the game g,
+    // and its cards are in the slice [(2*g+p)*capacity, (2*g+p+1)*capacity)
+    private final int[] cards;
+    private final int[] head;
+    private final int[] size;
+    private final long[] hash; // rolling hashes, as in IntRing
+    private final long[] powers;
+
+    // Brent's algorithm: checkpoint of the decks of each game, number of rounds since it and next jump
+    private final int[] saved;
+    private final int[] savedSize;
+    private final long[] savedHash;
+    private final long[] length;
+    private final long[] jump;
+
+    // cards put down in the current round of each game, in the slice [g*capacity, (g+1)*capacity)
+    private final int[] tricks;
+    private final int[] trickSize;
+
+    private final int[] outcome; // result of game() for each finished game, -1 if running
+    private final int[] running; // indices of the games still running
+    private int nbRunning;
+    private final int[] top1; // face-up cards of the k-th running game in the current pass
+    private final int[] top2;
+    private final int[] winner; // 1 or 2 for the winner of the first face-off of the k-th running game, 0 on a tie
+
+    // constructor of a batch of n games, each dealt as Battle(nbVals, random) would,
+    // drawing from random in the same order
+    BattleBatch(int nbVals, int n, RandomGenerator random) {
+        this.n = n;
+        this.capacity = 4 * nbVals;
+        cards = new int[2 * n * capacity];
+        head = new int[2 * n];
+        size = new int[2 * n];
+        hash = new long[2 * n];
+        powers = new long[2 * n];
+        saved = new int[2 * n * capacity];
+        savedSize = new int[2 * n];
+        savedHash = new long[n];
+        length = new long[n];
+        jump = new long[n];
+        tricks = new int[n * capacity];
+        trickSize = new int[n];
+        outcome = new int[n];
+        running = new int[n];
+        top1 = new int[n];
+        top2 = new int[n];
+        winner = new int[n];
+        Deck deck = new Deck(nbVals, random);
+        for (int g = 0; g < n; g++) {
+            deck.cards.clear();
+            for (int j = 1; j <= nbVals; j++)
+                for (int i = 0; i < 4; i++)
+                    deck.cards.addLast(j);
+            deck.riffleShuffle(7);
+            powers[2 * g] = 1;
+            powers[2 * g + 1] = 1;
+            for (int i = 0; i < capacity; i += 2) {
+                push(2 * g, deck.cards.get(i));
+                push(2 * g + 1, deck.cards.get(i + 1));
+            }
+        }
+    }
+
+    // number of cards of player1 and player2 in the game g
+    int size1(int g) {
+        return size[2 * g];
+    }
+
+    int size2(int g) {
+        return size[2 * g + 1];
+    }
+
+    // plays all the games until they end or are detected as infinite,
+    // and returns the number of draws, player1 wins, player2 wins and infinite games
+    long[] run() {
+        nbRunning = 0;
+        for (int g = 0; g < n; g++) {
+            outcome[g] = -1;
+            running[nbRunning++] = g;
+            save(g);
+            length[g] = 0;
+            jump[g] = 1;
+            trickSize[g] = 0;
+        }
+        // the decks of the running games are not empty at the start of a pass
+        while (nbRunning > 0) {
+            for (int k = 0; k < nbRunning; k++) {
+                final int g = running[k];
+                top1[k] = putDown(g, 2 * g);
+                top2[k] = putDown(g, 2 * g + 1);
+            }
+            for (int k = 0; k < nbRunning; k++)
+                winner[k] = (top2[k] - top1[k]) >>> 31 | (top1[k] - top2[k]) >>> 31 << 1;
+            int kept = 0;
+            for (int k = 0; k < nbRunning; k++) {
+                final int g = running[k];
+                final int w = winner[k] != 0 ? winner[k] : settle(g);
+                final boolean goesOn = w != 0 && win(g, 2 * g + w - 1);
+                running[kept] = g;
+                kept += goesOn ? 1 : 0;
+            }
+            nbRunning = kept;
+        }
+        long[] stats = new long[4];
+        for (int g = 0; g < n; g++)
+            stats[outcome[g]]++;
+        return stats;
+    }
+
+    // gives the trick of the game g to the deck d of its winner, then plays one step of Brent's
+    // algorithm as after a round of Battle.game(), returns false if the game ended
+    private boolean win(int g, int d) {
+        final int base = g * capacity;
+        for (int i = 0; i < trickSize[g]; i++)
+            push(d, tricks[base + i]);
+        trickSize[g] = 0;
+        length[g]++;
+        if (size[2 * g] == savedSize[2 * g] && hash(g) == savedHash[g] && equalsSaved(g)) {
+            outcome[g] = 3;
+            return false;
+        }
+        if (length[g] == jump[g]) {
+            save(g);
+            jump[g] <<= 1;
+            length[g] = 0;
+        }
+        return goesOn(g);
+    }
+
+    // plays the rest of the round of the game g after a tie as Battle.playRound, and
+    // returns its winner, or 0 if the game ended before the round was decided
+    private int settle(int g) {
+        while (true) {
+            if (!goesOn(g))
+                return 0;
+            putDown(g, 2 * g);
+            putDown(g, 2 * g + 1);
+            if (!goesOn(g))
+                return 0;
+            final int card1 = putDown(g, 2 * g);
+            final int card2 = putDown(g, 2 * g + 1);
+            if (card1 != card2)
+                return card1 > card2 ? 1 : 2;
+        }
+    }
+
+    // tests if both players of the game g still have cards, otherwise sets its outcome
+    // from the sizes of their decks, the cards of an unfinished round being lost as in Battle
+    private boolean goesOn(int g) {
+        final int s1 = size[2 * g];
+        final int s2 = size[2 * g + 1];
+        if (s1 != 0 && s2 != 0)
+            return true;
+        outcome[g] = s1 > s2 ? 1 : s1 < s2 ? 2 : 0;
+        return false;
+    }
+
+    // moves the first card of the deck d to the trick of the game g and returns it
+    private int putDown(int g, int d) {
+        final int x = pop(d);
+        tricks[g * capacity + trickSize[g]++] = x;
+        return x;
+    }
+
+    private int pop(int d) {
+        final int x = cards[d * capacity + head[d]];
+        if (++head[d] == capacity)
+            head[d] = 0;
+        size[d]--;
+        powers[d] *= IntRing.BASE_INVERSE;
+        hash[d] -= x * powers[d];
+        return x;
+    }
+
+    private void push(int d, int x) {
+        int j = head[d] + size[d];
+        cards[d * capacity + (j < capacity ? j : j - capacity)] = x;
+        size[d]++;
+        hash[d] = hash[d] * IntRing.BASE + x;
+        powers[d] *= IntRing.BASE;
+    }
+
+    // hash of the game g between two rounds, equal to Battle.stateHash() for the same decks
+    private long hash(int g) {
+        long h = hash[2 * g];
+        h = h * IntRing.BASE + size[2 * g];
+        h = h * IntRing.BASE + hash[2 * g + 1];
+        h = h * IntRing.BASE + size[2 * g + 1];
+        return h * IntRing.BASE;
+    }
+
+    // i-th card of the deck d
+    private int card(int d, int i) {
+        int j = head[d] + i;
+        return cards[d * capacity + (j < capacity ? j : j - capacity)];
+    }
+
+    // i-th card of player1 and player2 in the game g
+    int card1(int g, int i) {
+        return card(2 * g, i);
+    }
+
+    int card2(int g, int i) {
+        return card(2 * g + 1, i);
+    }
+
+    // saves the decks of the game g as its checkpoint
+    private void save(int g) {
+        for (int d = 2 * g; d < 2 * g + 2; d++) {
+            final int base = d * capacity;
+            for (int i = 0; i < size[d]; i++)
+                saved[base + i] = card(d, i);
+            savedSize[d] = size[d];
+        }
+        savedHash[g] = hash(g);
+    }
+
+    // tests if the decks of the game g are those of its checkpoint
+    private boolean equalsSaved(int g) {
+        for (int d = 2 * g; d < 2 * g + 2; d++) {
+            if (size[d] != savedSize[d])
+                return false;
+            final int base = d * capacity;
+            for (int i = 0; i < size[d]; i++)
+                if (saved[base + i] != card(d, i))
+                    return false;
+        }
+        return true;
+    }
+}
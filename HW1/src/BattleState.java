@@ -0,0 +1,120 @@
+/* Compact state of a battle.
+ * The cards of the three decks are packed in a long[], each card on just enough
+ * bits for the largest card of the battle, after a header word holding the
+ * number of bits per card and the sizes of the decks.
+ */
+
+import java.util.Arrays;
+
+class BattleState { // immutable bit-packed copy of the decks of a battle
+    static final int MAX_DECK = 0xFFFF; // the sizes of the decks are stored on 16 bits
+
+    private final long[] words; // header, then the cards of player1, player2 and trick
+    private final long hash;
+
+    // encodes the battle b
+    BattleState(Battle b) {
+        int max = 1;
+        for (Deck d : new Deck[] { b.player1, b.player2, b.trick })
+            for (int i = 0; i < d.cards.size(); i++)
+                max = Math.max(max, d.cards.get(i));
+        final int bits = 32 - Integer.numberOfLeadingZeros(max); // ceil(log2(max + 1))
+        final int n1 = b.player1.cards.size();
+        final int n2 = b.player2.cards.size();
+        final int n3 = b.trick.cards.size();
+        if (Math.max(n1, Math.max(n2, n3)) > MAX_DECK)
+            throw new IllegalArgumentException("decks of more than " + MAX_DECK + " cards cannot be encoded");
+        words = new long[1 + (int) (((long) (n1 + n2 + n3) * bits + 63) >>> 6)];
+        words[0] = bits | (long) n1 << 8 | (long) n2 << 24 | (long) n3 << 40;
+        long position = 64;
+        for (Deck d : new Deck[] { b.player1, b.player2, b.trick })
+            for (int i = 0; i < d.cards.size(); i++, position += bits)
+                write(position, bits, d.cards.get(i));
+        hash = hash(words);
+    }
+
+    // constructor from the words of an encoded state, e.g. read from a file
+    BattleState(long[] words) {
+        this.words = words.clone();
+        this.hash = hash(words);
+    }
+
+    // copy of the words of the state
+    long[] words() {
+        return words.clone();
+    }
+
+    int bitsPerCard() {
+        return (int) (words[0] & 0xFF);
+    }
+
+    // number of cards of player1 (deck 0), player2 (deck 1) or trick (deck 2)
+    int size(int deck) {
+        return (int) (words[0] >>> (8 + 16 * deck)) & MAX_DECK;
+    }
+
+    // decodes the state into a new battle
+    Battle toBattle() {
+        final int n = size(0) + size(1) + size(2);
+        Battle b = new Battle(new Deck(new IntRing(n)), new Deck(new IntRing(n)), new Deck(new IntRing(n)));
+        decodeInto(b);
+        return b;
+    }
+
+    // replaces the decks of b by the decoded ones, without allocating if they are large enough
+    void decodeInto(Battle b) {
+        final int bits = bitsPerCard();
+        long position = 64;
+        int deck = 0;
+        for (Deck d : new Deck[] { b.player1, b.player2, b.trick }) {
+            d.cards.clear();
+            for (int i = size(deck++); i > 0; i--, position += bits)
+                d.cards.addLast(read(position, bits));
+        }
+    }
+
+    private void write(long position, int bits, int value) {
+        final int w = (int) (position >>> 6);
+        final int offset = (int) (position & 63);
+        words[w] |= (long) value << offset;
+        if (offset + bits > 64)
+            words[w + 1] |= (long) value >>> (64 - offset);
+    }
+
+    private int read(long position, int bits) {
+        final int w = (int) (position >>> 6);
+        final int offset = (int) (position & 63);
+        long value = words[w] >>> offset;
+        if (offset + bits > 64)
+            value |= words[w + 1] << (64 - offset);
+        return (int) (value & ((1L << bits) - 1));
+    }
+
+    private static long hash(long[] words) {
+        long h = 0;
+        for (long w : words)
+            h = (h ^ w) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    // 64-bit hash of the state
+    long longHash() {
+        return hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        BattleState s = (BattleState) o;
+        return hash == s.hash && Arrays.equals(words, s.words);
+    }
+
+    @Override
+    public String toString() {
+        return toBattle().toString();
+    }
+}
@@ -0,0 +1,214 @@
+/* Benchmarks of the battle game.
+ * Measures the throughput and the allocation of the main operations of Deck and
+ * Battle for games from 4 to 52 values, in the manner of JMH with -prof gc:
+ * warmup iterations, then timed iterations reporting the mean time per operation,
+ * the bytes allocated per operation and the number of garbage collections.
+ *
+ * Usage : java Bench [name ...]
+ * where the optional names select the benchmarks to run (riffleShuffle, newBattle,
+ * oneRound, gameTurns, game), by default all of them; the name deals, never run by
+ * default, plays once the 63,063,000 deals of 4 values with DealEnumerator, for minutes.
+ */
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public class Bench {
+    static final int[] NB_VALS = { 4, 8, 13, 26, 52 };
+    static final int WARMUP_ITERATIONS = 3;
+    static final int ITERATIONS = 5;
+    static final long ITERATION_NANOS = 500_000_000L;
+    static final int NB_BATTLES = 64; // number of different deals used by the game benchmarks
+    static final int TURNS = 1000; // maximum number of moves of gameTurns
+
+    static volatile long sink; // consumes the results so that the JIT cannot remove the operations
+
+    abstract static class Benchmark { // one operation measured for one number of values
+        final String name;
+        final int batch; // number of operations between two readings of the clock
+
+        Benchmark(String name, int batch) {
+            this.name = name;
+            this.batch = batch;
+        }
+
+        // prepares the state for games with nbVals values
+        abstract void setup(int nbVals);
+
+        // performs one operation and returns a value depending on its result
+        abstract long operation();
+    }
+
+    // initial battles dealt reproducibly
+    static Battle[] deals(int nbVals) {
+        RandomGenerator random = RandomGeneratorFactory.of("L64X128MixRandom").create(nbVals);
+        Battle[] battles = new Battle[NB_BATTLES];
+        for (int i = 0; i < NB_BATTLES; i++)
+            battles[i] = new Battle(nbVals, random);
+        return battles;
+    }
+
+    static List<Benchmark> benchmarks() {
+        return List.of(new Benchmark("riffleShuffle", 16) {
+            Deck deck;
+
+            @Override
+            void setup(int nbVals) {
+                deck = new Deck(nbVals, RandomGeneratorFactory.of("L64X128MixRandom").create(nbVals));
+            }
+
+            @Override
+            long operation() {
+                deck.riffleShuffle(7);
+                return deck.cards.get(0);
+            }
+        }, new Benchmark("newBattle", 16) {
+            int nbVals;
+            RandomGenerator random;
+
+            @Override
+            void setup(int nbVals) {
+                this.nbVals = nbVals;
+                random = RandomGeneratorFactory.of("L64X128MixRandom").create(nbVals);
+            }
+
+            @Override
+            long operation() {
+                return new Battle(nbVals, random).player1.cards.get(0);
+            }
+        }, new Benchmark("oneRound", 1024) {
+            Battle[] deals;
+            Battle battle;
+            int next;
+
+            @Override
+            void setup(int nbVals) {
+                deals = deals(nbVals);
+                battle = deals[0].copy();
+                next = 1;
+            }
+
+            @Override
+            long operation() {
+                if (!battle.oneRound()) {
+                    battle.setTo(deals[next]);
+                    next = (next + 1) % NB_BATTLES;
+                }
+                return battle.player1.cards.size();
+            }
+        }, new Benchmark("gameTurns", 1) {
+            Battle[] deals;
+            Battle battle;
+            int next;
+
+            @Override
+            void setup(int nbVals) {
+                deals = deals(nbVals);
+                battle = deals[0].copy();
+            }
+
+            @Override
+            long operation() {
+                battle.setTo(deals[next]);
+                next = (next + 1) % NB_BATTLES;
+                return battle.game(TURNS);
+            }
+        }, new Benchmark("game", 1) {
+            Battle[] deals;
+            int next;
+
+            @Override
+            void setup(int nbVals) {
+                deals = deals(nbVals);
+            }
+
+            @Override
+            long operation() {
+                Battle battle = deals[next];
+                next = (next + 1) % NB_BATTLES;
+                return battle.game();
+            }
+        });
+    }
+
+    // bytes allocated so far by the current thread
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // number of garbage collections so far
+    static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    // runs operations for at least ITERATION_NANOS and returns {nanoseconds, operations}
+    static long[] iteration(Benchmark b) {
+        long ops = 0;
+        long result = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < b.batch; i++)
+                result += b.operation();
+            ops += b.batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        sink += result;
+        return new long[] { elapsed, ops };
+    }
+
+    // measures the benchmark b for nbVals values and prints one line of results
+    static void measure(Benchmark b, int nbVals) {
+        b.setup(nbVals);
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            iteration(b);
+        double[] nanosPerOp = new double[ITERATIONS];
+        long ops = 0;
+        long bytes = -allocatedBytes();
+        long gcs = -collections();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long[] r = iteration(b);
+            nanosPerOp[i] = (double) r[0] / r[1];
+            ops += r[1];
+        }
+        bytes += allocatedBytes();
+        gcs += collections();
+        double mean = Arrays.stream(nanosPerOp).average().orElse(0);
+        double deviation = Math.sqrt(Arrays.stream(nanosPerOp).map(x -> (x - mean) * (x - mean)).sum() / ITERATIONS);
+        System.out.println(String.format("%-14s %6d %14.1f %10.1f %12.1f %6d", b.name, nbVals, mean, deviation,
+                (double) bytes / ops, gcs));
+    }
+
+    // plays all the deals of the deck of nbVals values and prints their statistics and the time taken
+    static void enumerate(int nbVals) {
+        long startTime = System.nanoTime();
+        long[] stats = DealEnumerator.count(nbVals, ForkJoinPool.commonPool());
+        long endTime = System.nanoTime();
+        System.out.println(String.format("deals of %d values: %d draws, %d player1 wins, %d player2 wins, %d infinite "
+                + "games, %d deals in %.1f s on %d threads", nbVals, stats[0], stats[1], stats[2], stats[3],
+                Arrays.stream(stats).sum(), (endTime - startTime) / 1e9, ForkJoinPool.commonPool().getParallelism()));
+    }
+
+    public static void main(String[] args) {
+        List<String> names = Arrays.asList(args);
+        if (names.contains("deals"))
+            enumerate(DealEnumerator.MAX_VALUES);
+        if (names.equals(List.of("deals")))
+            return;
+        System.out.println(String.format("%-14s %6s %14s %10s %12s %6s", "Benchmark", "nbVals", "ns/op", "error",
+                "B/op", "gc"));
+        for (Benchmark b : benchmarks())
+            if (names.isEmpty() || names.contains(b.name))
+                for (int nbVals : NB_VALS)
+                    measure(b, nbVals);
+    }
+}
@@ -0,0 +1,173 @@
+/* Metrics of battle games.
+ * This file contains three classes :
+ * 		- Histogram counts values in logarithmic buckets and gives their percentiles,
+ * 		- GameMetrics collects histograms of the games played by one thread,
+ * 		- MetricsCollector gives each thread its own GameMetrics and merges them.
+ *
+ * The buckets of Histogram are those of HdrHistogram with 2 significant digits:
+ * values below 64 have their own bucket, and each power of 2 above is cut into
+ * 32 buckets, so a value is known up to 1/32 of it. Histograms of the same
+ * layout are merged by adding their counts.
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+class Histogram { // mergeable histogram of non negative values
+    static final int SUB_BITS = 6; // values below 2^SUB_BITS are counted exactly
+    static final int HALF = 1 << (SUB_BITS - 1); // number of buckets per power of 2
+    static final int NB_BUCKETS = (65 - SUB_BITS) * HALF;
+
+    private final long[] counts = new long[NB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    // index of the bucket of the value v
+    static int bucket(long v) {
+        if (v < 2 * HALF)
+            return (int) v;
+        final int shift = 64 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return shift * HALF + (int) (v >>> shift);
+    }
+
+    // largest value of the bucket i
+    static long highest(int i) {
+        if (i < 2 * HALF)
+            return i;
+        final int shift = i / HALF - 1;
+        return ((long) (i % HALF + HALF + 1) << shift) - 1;
+    }
+
+    // counts the value v
+    void record(long v) {
+        if (v < 0)
+            throw new IllegalArgumentException("negative value " + v);
+        counts[bucket(v)]++;
+        count++;
+        sum += v;
+        max = Math.max(max, v);
+    }
+
+    // adds the values counted by h
+    void merge(Histogram h) {
+        for (int i = 0; i < NB_BUCKETS; i++)
+            counts[i] += h.counts[i];
+        count += h.count;
+        sum += h.sum;
+        max = Math.max(max, h.max);
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // smallest value, up to the precision of the buckets, that is larger than or
+    // equal to p percent of the values counted
+    long valueAtPercentile(double p) {
+        final long rank = Math.max(1, (long) Math.ceil(p / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(highest(i), max);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %d, mean %.1f, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d", count, mean(),
+                valueAtPercentile(50), valueAtPercentile(90), valueAtPercentile(99), valueAtPercentile(99.9), max);
+    }
+}
+
+class GameMetrics { // histograms of the games played by one thread, it must not be shared between threads
+    final long[] outcomes = new long[4]; // number of games of each result of game()
+    final Histogram rounds = new Histogram(); // number of rounds played by each game
+    final Histogram tieChains = new Histogram(); // number of rounds with at least one tie of each game
+    final Histogram cycleLength = new Histogram(); // length of the cycle of each infinite game
+    final Histogram prePeriod = new Histogram(); // number of rounds before the cycle of each infinite game
+
+    private long gameRounds; // counters of the current game
+    private long gameChains;
+
+    // starts a game
+    void beginGame() {
+        gameRounds = 0;
+        gameChains = 0;
+    }
+
+    // counts a round of the current game decided after the given number of ties
+    void round(int ties) {
+        gameRounds++;
+        if (ties > 0)
+            gameChains++;
+    }
+
+    // counts a round of the current game ended after the given number of ties because the cards ran out
+    void roundOver(int ties) {
+        if (ties > 0)
+            gameChains++;
+    }
+
+    // ends the current game, whose result is outcome
+    void endGame(int outcome) {
+        outcomes[outcome]++;
+        rounds.record(gameRounds);
+        tieChains.record(gameChains);
+    }
+
+    // counts the cycle of the current infinite game, reached after prePeriod rounds
+    void cycle(long prePeriod, long length) {
+        this.prePeriod.record(prePeriod);
+        cycleLength.record(length);
+    }
+
+    // adds the games counted by m
+    void merge(GameMetrics m) {
+        for (int i = 0; i < 4; i++)
+            outcomes[i] += m.outcomes[i];
+        rounds.merge(m.rounds);
+        tieChains.merge(m.tieChains);
+        cycleLength.merge(m.cycleLength);
+        prePeriod.merge(m.prePeriod);
+    }
+
+    @Override
+    public String toString() {
+        return " - " + outcomes[0] + " draws\n" + " - " + outcomes[1] + " player1 wins\n" + " - " + outcomes[2]
+                + " player2 wins\n" + " - " + outcomes[3] + " infinite games\n" + " - rounds: " + rounds + "\n"
+                + " - tie chains: " + tieChains + "\n" + " - cycle length of infinite games: " + cycleLength + "\n"
+                + " - pre-period of infinite games: " + prePeriod;
+    }
+}
+
+class MetricsCollector { // one GameMetrics per thread, merged on demand
+    private final ConcurrentLinkedQueue<GameMetrics> all = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<GameMetrics> local = ThreadLocal.withInitial(() -> {
+        GameMetrics m = new GameMetrics();
+        all.add(m);
+        return m;
+    });
+
+    // metrics of the current thread
+    GameMetrics forThread() {
+        return local.get();
+    }
+
+    // merge of the metrics of all the threads, to call once the games are over
+    GameMetrics snapshot() {
+        GameMetrics merged = new GameMetrics();
+        for (GameMetrics m : all)
+            merged.merge(m);
+        return merged;
+    }
+}
@@ -0,0 +1,208 @@
+/* Traces of battle games.
+ * This file contains two classes :
+ * 		- TraceRecorder writes the rounds of games to a binary file,
+ * 		- TraceReplayer rebuilds the states of the recorded games.
+ *
+ * A trace is a sequence of games. A game is the byte 'G', the number of words
+ * of the BattleState of its initial battle and these words, then its rounds and
+ * finally the byte 'O' and the result of the game. A round is one byte holding
+ * its result (Battle.ROUND_OVER, ROUND_PLAYER1 or ROUND_PLAYER2) on the 2 lowest
+ * bits and its number of ties above, followed by the number of ties as a short
+ * if it is at least 63. Numbers are written in big-endian order.
+ *
+ * The cards played are not written: the game being deterministic, the replayer
+ * plays them again from the initial battle, independently of Battle.playRound,
+ * and checks the recorded result and number of ties of every round. Writing
+ * about one byte per round is what keeps the recording cheap.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+class TraceRecorder implements AutoCloseable { // writes the rounds of games to a binary file
+    // the markers have their 2 lowest bits set, unlike the rounds
+    static final byte GAME = 'G';
+    static final byte END = 'O';
+    static final int LONG_TIES = 63; // number of ties from which it is written on a short
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final byte[] bytes = new byte[BUFFER_SIZE]; // filled directly by round, the hot path
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int length; // number of bytes waiting to be written
+
+    // constructor of a recorder writing in a new file path
+    TraceRecorder(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    // starts the recording of a game from the battle b
+    void beginGame(Battle b) {
+        BattleState state = new BattleState(b);
+        if (state.bitsPerCard() > 8)
+            throw new IllegalArgumentException("cards above 255 cannot be recorded");
+        long[] words = state.words();
+        reserve(5);
+        bytes[length] = GAME;
+        buffer.putInt(length + 1, words.length);
+        length += 5;
+        for (long w : words) {
+            reserve(8);
+            buffer.putLong(length, w);
+            length += 8;
+        }
+    }
+
+    // records a round whose result is code, after the given number of ties
+    void round(int code, int ties) {
+        if (length + 3 > BUFFER_SIZE)
+            flush();
+        if (ties < LONG_TIES) {
+            bytes[length++] = (byte) (code | ties << 2);
+            return;
+        }
+        bytes[length] = (byte) (code | LONG_TIES << 2);
+        bytes[length + 1] = (byte) (ties >>> 8);
+        bytes[length + 2] = (byte) ties;
+        length += 3;
+    }
+
+    // ends the recording of the current game, whose result is outcome
+    void endGame(int outcome) {
+        reserve(2);
+        bytes[length] = END;
+        bytes[length + 1] = (byte) outcome;
+        length += 2;
+    }
+
+    // makes room for n bytes in the buffer
+    private void reserve(int n) {
+        if (length + n > BUFFER_SIZE)
+            flush();
+    }
+
+    // writes the buffered rounds to the file
+    void flush() {
+        buffer.position(0).limit(length);
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+        length = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
+
+class TraceReplayer { // rebuilds the states of the games of a trace
+    private final MappedByteBuffer trace;
+    private final ArrayList<Integer> games = new ArrayList<>(); // position of each game in the trace
+    private final ArrayList<Long> rounds = new ArrayList<>(); // number of rounds of each game
+    private final ArrayList<Integer> outcomes = new ArrayList<>(); // result of each game, -1 if unfinished
+
+    // constructor of a replayer of the file path, which is memory mapped and indexed
+    TraceReplayer(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            trace = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int position = 0;
+        while (position < trace.limit()) {
+            if (trace.get(position) != TraceRecorder.GAME)
+                throw new IllegalArgumentException("no game at position " + position + " of " + path);
+            games.add(position);
+            position += 5 + 8 * trace.getInt(position + 1);
+            long nbRounds = 0;
+            while (position < trace.limit() && trace.get(position) != TraceRecorder.GAME
+                    && trace.get(position) != TraceRecorder.END) {
+                position += (trace.get(position) & 0xFF) >>> 2 == TraceRecorder.LONG_TIES ? 3 : 1;
+                nbRounds++;
+            }
+            rounds.add(nbRounds);
+            if (position < trace.limit() && trace.get(position) == TraceRecorder.END) {
+                outcomes.add((int) trace.get(position + 1));
+                position += 2;
+            } else
+                outcomes.add(-1);
+        }
+    }
+
+    int nbGames() {
+        return games.size();
+    }
+
+    // number of rounds recorded for the game
+    long nbRounds(int game) {
+        return rounds.get(game);
+    }
+
+    // result of the game, -1 if the trace ends before
+    int outcome(int game) {
+        return outcomes.get(game);
+    }
+
+    // rebuilds the battle of the game after the given number of rounds; throws
+    // IllegalStateException at the first round whose replay does not match the trace
+    Battle stateAfter(int game, long nbRounds) {
+        if (nbRounds > rounds.get(game))
+            throw new IllegalArgumentException("the game " + game + " has only " + rounds.get(game) + " rounds");
+        int position = games.get(game);
+        final int nbWords = trace.getInt(position + 1);
+        final long[] words = new long[nbWords];
+        for (int i = 0; i < nbWords; i++)
+            words[i] = trace.getLong(position + 5 + 8 * i);
+        position += 5 + 8 * nbWords;
+        Battle b = new BattleState(words).toBattle();
+        for (long r = 0; r < nbRounds; r++) {
+            final int head = trace.get(position) & 0xFF;
+            int ties = head >>> 2;
+            if (ties == TraceRecorder.LONG_TIES) {
+                ties = (trace.get(position + 1) & 0xFF) << 8 | trace.get(position + 2) & 0xFF;
+                position += 3;
+            } else
+                position++;
+            final int code = head & 3;
+            final int[] played = replayRound(b);
+            if (played[0] != code || played[1] != ties)
+                throw new IllegalStateException("round " + r + " of the game " + game + " should end with "
+                        + played[0] + " after " + played[1] + " ties, the trace gives " + code + " after " + ties);
+        }
+        return b;
+    }
+
+    // plays one round of b with the rules of the game and returns its result and its number of ties
+    private static int[] replayRound(Battle b) {
+        int ties = 0;
+        while (!b.isOver()) {
+            final int card1 = b.trick.pick(b.player1);
+            final int card2 = b.trick.pick(b.player2);
+            if (card1 > card2) {
+                b.player1.pickAll(b.trick);
+                return new int[] { Battle.ROUND_PLAYER1, ties };
+            }
+            if (card1 < card2) {
+                b.player2.pickAll(b.trick);
+                return new int[] { Battle.ROUND_PLAYER2, ties };
+            }
+            ties++;
+            if (b.isOver())
+                break;
+            b.trick.pick(b.player1);
+            b.trick.pick(b.player2);
+        }
+        return new int[] { Battle.ROUND_OVER, ties };
+    }
+}
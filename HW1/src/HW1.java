@@ -1,14 +1,240 @@
 /* HW1. Battle
- * This file contains two classes :
+ * This file contains five classes :
+ * 		- IntRing is a circular buffer of cards,
  * 		- Deck represents a pack of cards,
- * 		- Battle represents a battle game.
+ * 		- Battle represents a battle game,
+ * 		- StatsTask plays random games in parallel,
+ * 		- DealEnumerator plays all the possible deals in parallel.
  */
 
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+class IntRing implements Iterable<Integer> { // circular buffer of int, used as the storage of a deck
+    static final int DEFAULT_CAPACITY = 16;
+
+    // the rolling hash is the polynomial sum of values[i] * BASE^(size-1-i) modulo 2^64,
+    // BASE is odd so it has an inverse modulo 2^64 used to drop the first value
+    static final long BASE = 0x9E3779B97F4A7C15L;
+    static final long BASE_INVERSE = inverse(BASE);
+
+    private int[] values;
+    private int head; // index of the first value
+    private int size; // number of values
+    private long hash; // rolling hash of the values
+    private long power = 1; // BASE^size
+    private int[] spare; // second buffer, filled by the shuffles and then swapped with values
+
+    // constructor of an empty buffer holding up to capacity values before growing
+    IntRing(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    // constructor of an empty buffer with the default capacity
+    IntRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int capacity() {
+        return values.length;
+    }
+
+    // rolling hash of the values, updated in constant time by addLast and removeFirst
+    long hash() {
+        return hash;
+    }
+
+    // BASE^size, so that a.hash() * b.power() + b.hash() is the hash of a followed by b
+    long power() {
+        return power;
+    }
+
+    // inverse of an odd number modulo 2^64 by Newton's iteration
+    static long inverse(long a) {
+        long x = a; // correct on the 3 lowest bits, each step doubles the number of correct bits
+        for (int i = 0; i < 5; i++)
+            x *= 2 - a * x;
+        return x;
+    }
+
+    // returns the i-th value from the front
+    int get(int i) {
+        int j = head + i;
+        return values[j < values.length ? j : j - values.length];
+    }
+
+    // adds x at the end of the buffer, the buffer only grows if it is full
+    void addLast(int x) {
+        if (size == values.length)
+            grow();
+        int j = head + size;
+        values[j < values.length ? j : j - values.length] = x;
+        size++;
+        hash = hash * BASE + x;
+        power *= BASE;
+    }
+
+    // removes and returns the first value
+    int removeFirst() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        int x = values[head];
+        if (++head == values.length)
+            head = 0;
+        size--;
+        power *= BASE_INVERSE;
+        hash -= x * power;
+        return x;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+        hash = 0;
+        power = 1;
+    }
+
+    // copy of the buffer with the same capacity
+    IntRing copy() {
+        IntRing r = new IntRing(values.length);
+        r.setTo(this);
+        return r;
+    }
+
+    // replaces the values by those of r, without allocating if the capacity is enough
+    void setTo(IntRing r) {
+        if (values.length < r.size)
+            values = new int[r.values.length];
+        for (int i = 0; i < r.size; i++)
+            values[i] = r.get(i);
+        head = 0;
+        size = r.size;
+        hash = r.hash;
+        power = r.power;
+    }
+
+    // buffer of at least the given length to be filled from index 0 and installed by swapSpare,
+    // it is only allocated on the first call
+    int[] spare(int length) {
+        if (spare == null || spare.length < length)
+            spare = new int[Math.max(length, values.length)];
+        return spare;
+    }
+
+    // replaces the values by the first size values of the buffer returned by spare
+    void swapSpare(int size) {
+        int[] old = values;
+        values = spare;
+        spare = old;
+        head = 0;
+        this.size = size;
+        hash = 0;
+        power = 1;
+        for (int i = 0; i < size; i++) {
+            hash = hash * BASE + values[i];
+            power *= BASE;
+        }
+    }
+
+    // doubles the capacity, only used by decks built without a known size
+    private void grow() {
+        int[] larger = new int[2 * values.length];
+        for (int i = 0; i < size; i++)
+            larger[i] = get(i);
+        values = larger;
+        head = 0;
+    }
+
+    // boxed copy of the values, kept for the list based tests
+    Object[] toArray() {
+        Object[] t = new Object[size];
+        for (int i = 0; i < size; i++)
+            t[i] = get(i);
+        return t;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (i >= size)
+                    throw new NoSuchElementException();
+                return get(i++);
+            }
+        };
+    }
+
+    // same format as LinkedList.toString
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                s.append(", ");
+            s.append(get(i));
+        }
+        return s.append(']').toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++)
+            hash = 31 * hash + get(i);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        IntRing r = (IntRing) o;
+        if (size != r.size || hash != r.hash)
+            return false;
+        for (int i = 0; i < size; i++)
+            if (get(i) != r.get(i))
+                return false;
+        return true;
+    }
+}
 
 class Deck { // represents a pack of cards
 
-    LinkedList<Integer> cards;
+    // generator drawing its numbers from Math.random()
+    static final RandomGenerator MATH_RANDOM = new RandomGenerator() {
+        @Override
+        public double nextDouble() {
+            return Math.random();
+        }
+
+        @Override
+        public long nextLong() {
+            return (long) (Math.random() * 0x1p32) << 32 ^ (long) (Math.random() * 0x1p32);
+        }
+    };
+
+    IntRing cards;
+    RandomGenerator random = MATH_RANDOM; // generator used to shuffle the deck
     // The methods toString, hashCode, equals, and copy are used for
     // display and testing, you should not modify them.
 
@@ -29,28 +255,45 @@ class Deck { // represents a pack of cards
     }
 
     Deck copy() {
-        Deck d = new Deck();
-        for (Integer card : this.cards)
-            d.cards.addLast(card);
+        Deck d = new Deck(this.cards.copy());
+        d.random = this.random;
         return d;
     }
 
     // constructor of an empty deck
     Deck() {
-        cards = new LinkedList<Integer>();
+        cards = new IntRing();
     }
 
     // constructor from field
-    Deck(LinkedList<Integer> cards) {
+    Deck(IntRing cards) {
         this.cards = cards;
     }
 
+    // constructor from a list of cards
+    Deck(LinkedList<Integer> cards) {
+        this.cards = new IntRing(cards.size());
+        for (int card : cards)
+            this.cards.addLast(card);
+    }
+
+    // constructor of an empty deck able to hold all the cards of a game with nbVals values
+    static Deck withRoomFor(int nbVals) {
+        return new Deck(new IntRing(4 * nbVals));
+    }
+
     // constructor of a complete sorted deck of cards with nbVals values
     Deck(int nbVals) {
-        cards = new LinkedList<Integer>();
+        cards = new IntRing(4 * nbVals);
         for (int j = 1; j <= nbVals; j++)
             for (int i = 0; i < 4; i++)
-                cards.add(j);
+                cards.addLast(j);
+    }
+
+    // constructor of a complete sorted deck of cards with nbVals values shuffled with the generator random
+    Deck(int nbVals, RandomGenerator random) {
+        this(nbVals);
+        this.random = random;
     }
 
     // Question 1
@@ -73,7 +316,8 @@ class Deck { // represents a pack of cards
     // checks if the current packet is valid
     boolean isValid(int nbVals) {
         int[] numbers = new int[nbVals]; // numbers[i] is the number of cards of value i+1
-        for (Integer x : cards) {
+        for (int i = 0; i < cards.size(); i++) {
+            final int x = cards.get(i);
             if (x < 1 || x > nbVals || numbers[x - 1] > 3)
                 return false;
             numbers[x - 1]++;
@@ -83,18 +327,22 @@ class Deck { // represents a pack of cards
 
     // Question 2.1
 
-    // chooses a position for the cut
+    // chooses a position for the cut, following the binomial distribution B(n, 1/2)
+    // as the number of ones among n random bits, drawn 64 at a time
     int cut() {
         int position = 0;
-        for (int i = 0; i < cards.size(); i++)
-            if (Math.random() < 0.5)
-                position++;
+        int n = cards.size();
+        for (; n >= 64; n -= 64)
+            position += Long.bitCount(random.nextLong());
+        if (n > 0)
+            position += Long.bitCount(random.nextLong() >>> (64 - n));
         return position;
     }
 
     // cuts the current packet in two at the position given by cut()
     Deck split() {
-        Deck d = new Deck();
+        Deck d = new Deck(new IntRing(cards.capacity()));
+        d.random = random;
         int position = cut();
         for (int i = 0; i < position; i++)
             d.pick(this);
@@ -103,38 +351,82 @@ class Deck { // represents a pack of cards
 
     // Question 2.2
 
-    // mixes the current deck and the deck d
+    // mixes the current deck and the deck d, d is left unchanged
     void riffleWith(Deck d) {
-        Deck deck1 = this.copy();
-        Deck deck2 = d.copy();
-        cards.clear();
-        while (!deck1.cards.isEmpty() && !deck2.cards.isEmpty()) {
-            final double total = deck1.cards.size() + deck2.cards.size();
-            if (Math.random() * total < deck1.cards.size()) // use * instead of / to avoid precision loss
-                pick(deck1);
+        final int n1 = cards.size();
+        final int n2 = d.cards.size();
+        final int[] merged = cards.spare(n1 + n2);
+        int i1 = 0;
+        int i2 = 0;
+        while (i1 < n1 && i2 < n2) {
+            final double total = (n1 - i1) + (n2 - i2);
+            if (random.nextDouble() * total < n1 - i1) // use * instead of / to avoid precision loss
+                merged[i1 + i2] = cards.get(i1++);
             else
-                pick(deck2);
+                merged[i1 + i2] = d.cards.get(i2++);
         }
-        pickAll(deck1);
-        pickAll(deck2);
+        while (i1 < n1)
+            merged[i1 + i2] = cards.get(i1++);
+        while (i2 < n2)
+            merged[i1 + i2] = d.cards.get(i2++);
+        cards.swapSpare(n1 + n2);
     }
 
     // Question 2.3
 
-    // shuffles the current deck using the riffle shuffle
+    // shuffles the current deck using the riffle shuffle, each shuffle cuts the deck
+    // and merges the two packets in place, as split() followed by riffleWith would
     void riffleShuffle(int m) {
+        final int n = cards.size();
         for (int i = 0; i < m; i++) {
-            Deck d = split();
-            riffleWith(d);
+            final int position = cut();
+            final int[] merged = cards.spare(n);
+            int i1 = 0; // next card of the first packet, cards 0 to position-1
+            int i2 = position; // next card of the second packet, cards position to n-1
+            while (i1 < position && i2 < n) {
+                final double total = (position - i1) + (n - i2);
+                if (random.nextDouble() * total < position - i1)
+                    merged[i1 + i2 - position] = cards.get(i1++);
+                else
+                    merged[i1 + i2 - position] = cards.get(i2++);
+            }
+            while (i1 < position)
+                merged[i1 + i2 - position] = cards.get(i1++);
+            while (i2 < n)
+                merged[i1 + i2 - position] = cards.get(i2++);
+            cards.swapSpare(n);
         }
     }
 }
 
 class Battle { // represents a battle game
 
+    // methods of detection of infinite games used by game()
+    /** Floyd's tortoise and hare, comparing the whole battles at each step */
+    static final int FLOYD = 0;
+    /** Floyd's tortoise and hare, comparing the whole battles only when their hashes match */
+    static final int HASHED_FLOYD = 1;
+    /** Brent's algorithm, comparing the whole battles only when their hashes match */
+    static final int BRENT = 2;
+
+    // results of a round returned by playRound()
+    /** the game ended before the round could be decided */
+    static final int ROUND_OVER = 0;
+    /** player1 won the round */
+    static final int ROUND_PLAYER1 = 1;
+    /** player2 won the round */
+    static final int ROUND_PLAYER2 = 2;
+
+    static final int DISTINGUISHED_SHIFT = 58; // 1 state out of 64 (by hash) is looked up in the table
+    static final int MAX_PATH = 64; // maximal number of states of a game recorded in the table
+
     Deck player1;
     Deck player2;
     Deck trick;
+    int detection = BRENT; // method of detection of infinite games
+    TranspositionTable table; // outcomes of games shared with other battles, or null, not read while metrics is set
+    TraceRecorder trace; // recorder of the rounds played, or null, it must not be shared between threads
+    GameMetrics metrics; // metrics of the games played, or null, it must not be shared between threads
 
     // constructor of a battle without cards
     Battle() {
@@ -152,11 +444,7 @@ class Battle { // represents a battle game
 
     // copy the battle
     Battle copy() {
-        Battle r = new Battle();
-        r.player1 = this.player1.copy();
-        r.player2 = this.player2.copy();
-        r.trick = this.trick.copy();
-        return r;
+        return new Battle(this.player1.copy(), this.player2.copy(), this.trick.copy());
     }
 
     // string representing the battle
@@ -166,6 +454,22 @@ class Battle { // represents a battle game
                 + trick.toString();
     }
 
+    // replaces the decks by copies of those of b, without allocating
+    void setTo(Battle b) {
+        player1.cards.setTo(b.player1.cards);
+        player2.cards.setTo(b.player2.cards);
+        trick.cards.setTo(b.trick.cards);
+    }
+
+    // hash of the battle, two equal battles have the same hash
+    long stateHash() {
+        long h = player1.cards.hash();
+        h = h * IntRing.BASE + player1.cards.size();
+        h = h * IntRing.BASE + player2.cards.hash();
+        h = h * IntRing.BASE + player2.cards.size();
+        return h * IntRing.BASE + trick.cards.hash();
+    }
+
     // equality of battles
     @Override
     public boolean equals(Object o) {
@@ -177,10 +481,15 @@ class Battle { // represents a battle game
 
     // constructor of a battle with a deck of cards of nbVals values
     Battle(int nbVals) {
-        this.trick = new Deck(nbVals);
+        this(nbVals, Deck.MATH_RANDOM);
+    }
+
+    // constructor of a battle with a deck of cards of nbVals values shuffled with the generator random
+    Battle(int nbVals, RandomGenerator random) {
+        this.trick = new Deck(nbVals, random);
         this.trick.riffleShuffle(7);
-        this.player1 = new Deck();
-        this.player2 = new Deck();
+        this.player1 = Deck.withRoomFor(nbVals);
+        this.player2 = Deck.withRoomFor(nbVals);
         while (!this.trick.cards.isEmpty()) {
             this.player1.pick(this.trick);
             this.player2.pick(this.trick);
@@ -196,22 +505,59 @@ class Battle { // represents a battle game
 
     // performs one round of the game
     boolean oneRound() {
-        if (isOver())
-            return false;
-        final int card1 = trick.pick(player1);
-        final int card2 = trick.pick(player2);
-        if (card1 == card2) {
-            if (isOver())
-                return false;
-            trick.pick(player1);
-            trick.pick(player2);
-            return oneRound();
+        return playRound() != ROUND_OVER;
+    }
+
+    // performs one round of the game, resolving the whole chain of ties in a loop,
+    // and returns ROUND_OVER, ROUND_PLAYER1 or ROUND_PLAYER2
+    int playRound() {
+        final IntRing cards1 = player1.cards;
+        final IntRing cards2 = player2.cards;
+        final IntRing t = trick.cards;
+        int ties = 0;
+        while (true) {
+            if (cards1.isEmpty() || cards2.isEmpty())
+                return roundOver(ties);
+            final int card1 = cards1.removeFirst();
+            final int card2 = cards2.removeFirst();
+            t.addLast(card1);
+            t.addLast(card2);
+            if (card1 != card2) {
+                final int code = card1 > card2 ? ROUND_PLAYER1 : ROUND_PLAYER2;
+                if (trace != null)
+                    trace.round(code, ties);
+                if (metrics != null)
+                    metrics.round(ties);
+                final IntRing winner = card1 > card2 ? cards1 : cards2;
+                while (!t.isEmpty())
+                    winner.addLast(t.removeFirst());
+                return code;
+            }
+            // tie: each player puts a card face down before the next pair
+            ties++;
+            if (cards1.isEmpty() || cards2.isEmpty())
+                return roundOver(ties);
+            t.addLast(cards1.removeFirst());
+            t.addLast(cards2.removeFirst());
         }
-        if (card1 > card2)
-            player1.pickAll(trick);
-        else
-            player2.pickAll(trick);
-        return true;
+    }
+
+    // records the last round if the cards ran out after a tie
+    private int roundOver(int ties) {
+        if (trace != null && ties > 0)
+            trace.round(ROUND_OVER, ties);
+        if (metrics != null)
+            metrics.roundOver(ties);
+        return ROUND_OVER;
+    }
+
+    // performs at most k rounds and returns the number of rounds completed,
+    // which is less than k only if the game ended
+    long playRounds(long k) {
+        for (long i = 0; i < k; i++)
+            if (playRound() == ROUND_OVER)
+                return i;
+        return k;
     }
 
     // Question 3.3
@@ -227,9 +573,15 @@ class Battle { // represents a battle game
 
     // plays a game with a fixed maximum number of moves
     int game(int turns) {
-        for (int i = 0; i < turns; i++)
-            if (!oneRound())
-                return winner();
+        if (trace != null)
+            trace.beginGame(this);
+        if (metrics != null)
+            metrics.beginGame();
+        playRounds(turns);
+        if (trace != null)
+            trace.endGame(winner());
+        if (metrics != null)
+            metrics.endGame(winner());
         return winner();
     }
 
@@ -237,18 +589,131 @@ class Battle { // represents a battle game
 
     // plays a game without limit of moves, but with detection of infinite games
     int game() {
+        if (trace != null)
+            trace.beginGame(this);
+        if (metrics != null)
+            metrics.beginGame();
+        final int outcome;
+        switch (detection) {
+            case FLOYD:
+                outcome = floyd(false);
+                break;
+            case HASHED_FLOYD:
+                outcome = floyd(true);
+                break;
+            case BRENT:
+                outcome = brent();
+                break;
+            default:
+                throw new IllegalStateException("unknown detection method " + detection);
+        }
+        if (trace != null)
+            trace.endGame(outcome);
+        if (metrics != null) {
+            if (outcome == 3)
+                measureCycle();
+            metrics.endGame(outcome);
+        }
+        return outcome;
+    }
+
+    // counts in metrics the pre-period and the length of the cycle of the game from this
+    // battle, known to be infinite, which is played again from copies without table
+    private void measureCycle() {
+        Battle turtle = this.copy();
+        Battle hare = this.copy();
+        long power = 1;
+        long length = 0;
+        do { // Brent's algorithm, the battles are compared when their hashes match
+            if (length == power) {
+                turtle.setTo(hare);
+                power <<= 1;
+                length = 0;
+            }
+            hare.playRound();
+            length++;
+        } while (turtle.stateHash() != hare.stateHash() || !turtle.equals(hare));
+        turtle.setTo(this);
+        hare.setTo(this);
+        hare.playRounds(length);
+        long prePeriod = 0;
+        while (turtle.stateHash() != hare.stateHash() || !turtle.equals(hare)) {
+            turtle.playRound();
+            hare.playRound();
+            prePeriod++;
+        }
+        metrics.cycle(prePeriod, length);
+    }
+
+    // tortoise and hare, the whole battles are only compared on a hash match if hashed is true
+    private int floyd(boolean hashed) {
         Battle turtle = this.copy();
         Battle hare = this.copy();
+        hare.trace = trace; // the hare plays every round first
+        hare.metrics = metrics;
         while (true) {
-            if (!turtle.oneRound())
+            if (turtle.playRound() == ROUND_OVER)
                 return turtle.winner();
-            if (!hare.oneRound() || !hare.oneRound())
+            if (hare.playRounds(2) < 2)
                 return hare.winner();
-            if (turtle.equals(hare)) // I defined equality of Battle at line 169
+            if ((!hashed || turtle.stateHash() == hare.stateHash()) && turtle.equals(hare))
                 return 3;
         }
     }
 
+    // Brent's algorithm: the hare moves one round at a time and the turtle jumps to
+    // the hare each time the number of rounds since the last jump reaches a power of 2
+    private int brent() {
+        Battle hare = this.copy();
+        hare.table = metrics == null ? table : null; // a game stopped at a table hit would miss rounds in metrics
+        hare.trace = trace;
+        hare.metrics = metrics;
+        return hare.playBrent(this.copy());
+    }
+
+    // plays the current battle until its end with Brent's algorithm and returns the result
+    // of game(), turtle is overwritten and used as the checkpoint; if there is a table,
+    // the game stops at the first distinguished state found in it, and the outcome is
+    // recorded for the distinguished states met on the way
+    int playBrent(Battle turtle) {
+        turtle.setTo(this);
+        BattleState[] path = table == null ? null : new BattleState[MAX_PATH];
+        int nbPath = 0;
+        int outcome;
+        long power = 1;
+        long length = 0;
+        while (true) {
+            if (playRound() == ROUND_OVER) {
+                outcome = winner();
+                break;
+            }
+            final long hash = stateHash();
+            if (path != null && hash >>> DISTINGUISHED_SHIFT == 0) {
+                BattleState state = new BattleState(this);
+                int known = table.get(state);
+                if (known >= 0) {
+                    outcome = known;
+                    break;
+                }
+                if (nbPath < MAX_PATH)
+                    path[nbPath++] = state;
+            }
+            length++;
+            if (turtle.stateHash() == hash && turtle.equals(this)) {
+                outcome = 3;
+                break;
+            }
+            if (length == power) {
+                turtle.setTo(this);
+                power <<= 1;
+                length = 0;
+            }
+        }
+        for (int i = 0; i < nbPath; i++)
+            table.put(path[i], outcome);
+        return outcome;
+    }
+
     // Question 4.2
 
     // performs statistics on the number of infinite games
@@ -264,4 +729,205 @@ class Battle { // represents a battle game
         System.out.println(" - " + stats[2] + " player2 wins");
         System.out.println(" - " + stats[3] + " infinite games");
     }
+
+    // performs the same statistics in parallel on all the cores, reproducibly from seed
+    static void stats(int nbVals, long nbGames, long seed) {
+        long[] stats = parallelStats(nbVals, nbGames, seed, ForkJoinPool.commonPool());
+        System.out.println("For " + nbGames + " games with " + nbVals + " values and the seed " + seed + ", we have:");
+        System.out.println(" - " + stats[0] + " draws");
+        System.out.println(" - " + stats[1] + " player1 wins");
+        System.out.println(" - " + stats[2] + " player2 wins");
+        System.out.println(" - " + stats[3] + " infinite games");
+    }
+
+    // performs the same statistics with the distributions of the number of rounds, of tie chains,
+    // and of the length and pre-period of the cycles of infinite games
+    static void detailedStats(int nbVals, long nbGames, long seed) {
+        MetricsCollector metrics = new MetricsCollector();
+        parallelStats(nbVals, nbGames, new SplittableRandom(seed), ForkJoinPool.commonPool(), null, metrics);
+        System.out.println("For " + nbGames + " games with " + nbVals + " values and the seed " + seed + ", we have:");
+        System.out.println(metrics.snapshot());
+    }
+
+    // performs exact statistics over all the distinct deals of a deck of nbVals values
+    static void exactStats(int nbVals) {
+        long[] stats = DealEnumerator.count(nbVals, ForkJoinPool.commonPool());
+        System.out.println("For the " + (stats[0] + stats[1] + stats[2] + stats[3]) + " deals with " + nbVals
+                + " values, we have:");
+        System.out.println(" - " + stats[0] + " draws");
+        System.out.println(" - " + stats[1] + " player1 wins");
+        System.out.println(" - " + stats[2] + " player2 wins");
+        System.out.println(" - " + stats[3] + " infinite games");
+    }
+
+    // returns the number of draws, player1 wins, player2 wins and infinite games among
+    // nbGames random games played on pool, the result only depends on nbVals, nbGames and seed
+    static long[] parallelStats(int nbVals, long nbGames, long seed, ForkJoinPool pool) {
+        return parallelStats(nbVals, nbGames, new SplittableRandom(seed), pool);
+    }
+
+    // same with the generators split from random, e.g. a seeded L64X128MixRandom,
+    // the result only depends on nbVals, nbGames and the state of random
+    static long[] parallelStats(int nbVals, long nbGames, SplittableGenerator random, ForkJoinPool pool) {
+        return parallelStats(nbVals, nbGames, random, pool, null);
+    }
+
+    // same with the outcomes of the games shared through table, if it is not null; random
+    // deals of more than 4 values almost never meet the same states (no hit in 20000 games
+    // of 6 values), so the table pays off for the smallest decks and DealEnumerator only
+    static long[] parallelStats(int nbVals, long nbGames, SplittableGenerator random, ForkJoinPool pool,
+            TranspositionTable table) {
+        return parallelStats(nbVals, nbGames, random, pool, table, null);
+    }
+
+    // same with the metrics of the games counted in metrics, if it is not null, in which case
+    // the games are played to their end without reading table
+    static long[] parallelStats(int nbVals, long nbGames, SplittableGenerator random, ForkJoinPool pool,
+            TranspositionTable table, MetricsCollector metrics) {
+        return pool.invoke(new StatsTask(nbVals, nbGames, random, table, metrics));
+    }
+}
+
+class StatsTask extends RecursiveTask<long[]> { // plays random games in parallel
+    private static final long serialVersionUID = 1L;
+
+    static final long THRESHOLD = 256; // number of games under which the games are played sequentially
+
+    private final int nbVals;
+    private final long nbGames;
+    private final SplittableGenerator random; // owned by this task only
+    private final TranspositionTable table; // shared by all the tasks, or null
+    private final MetricsCollector metrics; // shared by all the tasks, or null
+
+    StatsTask(int nbVals, long nbGames, SplittableGenerator random, TranspositionTable table,
+            MetricsCollector metrics) {
+        this.nbVals = nbVals;
+        this.nbGames = nbGames;
+        this.random = random;
+        this.table = table;
+        this.metrics = metrics;
+    }
+
+    // the tree of tasks and the splits of the generators only depend on nbGames,
+    // so the games played do not depend on the number of threads
+    @Override
+    protected long[] compute() {
+        if (nbGames <= THRESHOLD) {
+            if (table == null && metrics == null) // the games do not share anything, they are played together
+                return new BattleBatch(nbVals, (int) nbGames, random).run();
+            long[] stats = new long[4];
+            for (long i = 0; i < nbGames; i++) {
+                Battle b = new Battle(nbVals, random);
+                b.table = table;
+                b.metrics = metrics == null ? null : metrics.forThread();
+                stats[b.game()]++;
+            }
+            return stats;
+        }
+        long half = nbGames / 2;
+        StatsTask left = new StatsTask(nbVals, half, random.split(), table, metrics);
+        StatsTask right = new StatsTask(nbVals, nbGames - half, random, table, metrics);
+        left.fork();
+        long[] stats = right.compute();
+        long[] other = left.join();
+        for (int i = 0; i < 4; i++)
+            stats[i] += other[i];
+        return stats;
+    }
+}
+
+// The players cannot be swapped to halve the enumeration: the winner of a round picks
+// the trick with the cards of player1 first, so the deal where the even and odd cards
+// are exchanged is not the same game with the results 1 and 2 exchanged (4 of the 70
+// deals of 2 values are not). The 63,063,000 deals of 4 values take minutes (java
+// Bench deals); the 3 * 10^11 deals of 5 values, 5000 times more, hence MAX_VALUES.
+class DealEnumerator extends RecursiveTask<long[]> { // plays all the possible deals in parallel
+    private static final long serialVersionUID = 1L;
+
+    static final int MAX_VALUES = 4; // there are about 3 * 10^11 deals with 5 values
+    static final int SEQUENTIAL_CARDS = 8; // number of cards left to place under which a task enumerates sequentially
+    static final int MAX_MEMO = 1 << 22; // maximal number of states in the memo
+
+    private final int nbVals;
+    private final int[] deal; // deal[i] is the i-th card of the shuffled deck, player1 gets the even ones
+    private final int placed; // number of cards of deal already chosen
+    private final int[] remaining; // remaining[v] is the number of cards of value v left to place
+    private final TranspositionTable memo; // outcome of game() from memoized states
+
+    private DealEnumerator(int nbVals, int[] deal, int placed, int[] remaining, TranspositionTable memo) {
+        this.nbVals = nbVals;
+        this.deal = deal;
+        this.placed = placed;
+        this.remaining = remaining;
+        this.memo = memo;
+    }
+
+    // returns the number of draws, player1 wins, player2 wins and infinite games among all the
+    // distinct orders of the deck of nbVals values, each dealt as in the constructor Battle(int nbVals)
+    static long[] count(int nbVals, ForkJoinPool pool) {
+        if (nbVals < 1 || nbVals > MAX_VALUES)
+            throw new IllegalArgumentException("nbVals must be between 1 and " + MAX_VALUES);
+        return count(nbVals, pool, new TranspositionTable(MAX_MEMO));
+    }
+
+    // same with the states shared through memo
+    static long[] count(int nbVals, ForkJoinPool pool, TranspositionTable memo) {
+        int[] remaining = new int[nbVals + 1];
+        for (int v = 1; v <= nbVals; v++)
+            remaining[v] = 4;
+        return pool.invoke(new DealEnumerator(nbVals, new int[4 * nbVals], 0, remaining, memo));
+    }
+
+    @Override
+    protected long[] compute() {
+        long[] stats = new long[4];
+        if (deal.length - placed <= SEQUENTIAL_CARDS) {
+            Battle hare = new Battle(Deck.withRoomFor(nbVals), Deck.withRoomFor(nbVals), Deck.withRoomFor(nbVals));
+            hare.table = memo;
+            Battle turtle = hare.copy();
+            enumerate(placed, hare, turtle, stats);
+            return stats;
+        }
+        LinkedList<DealEnumerator> children = new LinkedList<>();
+        for (int v = 1; v <= nbVals; v++) {
+            if (remaining[v] == 0)
+                continue;
+            int[] d = deal.clone();
+            int[] r = remaining.clone();
+            d[placed] = v;
+            r[v]--;
+            DealEnumerator child = new DealEnumerator(nbVals, d, placed + 1, r, memo);
+            child.fork();
+            children.add(child);
+        }
+        for (DealEnumerator child : children) {
+            long[] other = child.join();
+            for (int i = 0; i < 4; i++)
+                stats[i] += other[i];
+        }
+        return stats;
+    }
+
+    // places the cards from position i on in all the possible ways and plays the complete deals
+    private void enumerate(int i, Battle hare, Battle turtle, long[] stats) {
+        if (i == deal.length) {
+            hare.player1.cards.clear();
+            hare.player2.cards.clear();
+            hare.trick.cards.clear();
+            for (int j = 0; j < deal.length; j += 2) {
+                hare.player1.cards.addLast(deal[j]);
+                hare.player2.cards.addLast(deal[j + 1]);
+            }
+            stats[hare.playBrent(turtle)]++;
+            return;
+        }
+        for (int v = 1; v <= nbVals; v++) {
+            if (remaining[v] == 0)
+                continue;
+            remaining[v]--;
+            deal[i] = v;
+            enumerate(i + 1, hare, turtle, stats);
+            remaining[v]++;
+        }
+    }
 }
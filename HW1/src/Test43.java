@@ -0,0 +1,94 @@
+import java.util.LinkedList;
+import java.util.Scanner;
+
+public class Test43 {
+
+	// creates a deck of cards from a string
+	static Deck stringToDeck(String s) {
+		Scanner sc = new Scanner(s);
+		LinkedList<Integer> cards = new LinkedList<Integer>();
+		while (sc.hasNextInt()) {
+			cards.addLast(sc.nextInt());
+		}
+		sc.close();
+		return new Deck(cards);
+	}
+
+	// computes the rolling hash of a deck from scratch
+	static long hashOf(Deck d) {
+		long hash = 0;
+		for (int card : d.cards)
+			hash = hash * IntRing.BASE + card;
+		return hash;
+	}
+
+	// test that the rolling hash follows pick and pickAll
+	static void testHash(String i1, String i2) {
+		Deck d1 = stringToDeck(i1);
+		Deck d2 = stringToDeck(i2);
+		while (!d2.cards.isEmpty()) {
+			d1.pick(d2);
+			assert (d1.cards.hash() == hashOf(d1) && d2.cards.hash() == hashOf(d2))
+					: "\nThe rolling hash of " + d1 + " or " + d2 + " is not up to date after pick.";
+		}
+		d2.pick(d1);
+		d2.pick(d1);
+		assert (d1.cards.hash() == hashOf(d1) && d2.cards.hash() == hashOf(d2))
+				: "\nThe rolling hash of " + d1 + " or " + d2 + " is not up to date after pick.";
+		d2.pickAll(d1);
+		assert (d1.cards.hash() == 0 && d2.cards.hash() == hashOf(d2))
+				: "\nThe rolling hash of " + d2 + " is not up to date after pickAll.";
+	}
+
+	// test that the three methods of detection give the same result for game()
+	static void testGame(String i1, String i2, int o) {
+		for (int detection : new int[] { Battle.FLOYD, Battle.HASHED_FLOYD, Battle.BRENT }) {
+			Battle b = new Battle(stringToDeck(i1), stringToDeck(i2), new Deck());
+			b.detection = detection;
+			int r = b.game();
+			assert (r == o) : "\nFor the battle that players have the decks " + i1 + " and " + i2
+					+ ", calling game() with the detection " + detection + " should return " + o + " instead of " + r + ".";
+		}
+	}
+
+	// test that the three methods of detection agree on random battles
+	static void testRandomGames(int nbVals, int nbGames) {
+		for (int i = 0; i < nbGames; i++) {
+			Battle b = new Battle(nbVals);
+			b.detection = Battle.FLOYD;
+			int o = b.game();
+			b.detection = Battle.HASHED_FLOYD;
+			assert (b.game() == o) : "\nHashed Floyd and Floyd disagree on the battle\n" + b;
+			b.detection = Battle.BRENT;
+			assert (b.game() == o) : "\nBrent and Floyd disagree on the battle\n" + b;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test43.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the rolling hash
+		System.out.print("test of the rolling hash of decks ... ");
+		testHash("", "1");
+		testHash("1 2 3", "4 5 6 7 8");
+		testHash("13 1 7", "2 2 2 2 9 10 11 12 13 1 1");
+		System.out.println("[OK]");
+
+		// test of the methods of detection
+		System.out.print("test of the methods of detection of infinite games ... ");
+		testGame("", "", 0);
+		testGame("1", "1", 0);
+		testGame("1 1", "1", 1);
+		testGame("1", "2", 2);
+		testGame("1 2 1 2", "2 1 2 1", 3);
+		testRandomGames(5, 1000);
+		testRandomGames(13, 1000);
+		System.out.println("[OK]");
+	}
+}
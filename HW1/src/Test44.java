@@ -0,0 +1,69 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public class Test44 {
+
+	// test that parallelStats gives the same counts whatever the number of threads
+	static void testReproducible(int nbVals, long nbGames, long seed) {
+		long[] expected = null;
+		for (int parallelism : new int[] { 1, 2, 3, 8 }) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			long[] stats = Battle.parallelStats(nbVals, nbGames, seed, pool);
+			pool.shutdown();
+			assert (stats[0] + stats[1] + stats[2] + stats[3] == nbGames)
+					: "\nparallelStats should count " + nbGames + " games, not " + Arrays.toString(stats) + ".";
+			if (expected == null)
+				expected = stats;
+			assert (Arrays.equals(stats, expected)) : "\nWith the seed " + seed + ", parallelStats gives "
+					+ Arrays.toString(stats) + " on " + parallelism + " threads instead of " + Arrays.toString(expected) + ".";
+		}
+	}
+
+	// test that parallelStats with a splittable generator only depends on its seed
+	static void testGenerator(String algorithm, int nbVals, long nbGames, long seed) {
+		RandomGeneratorFactory<SplittableGenerator> factory = RandomGeneratorFactory.of(algorithm);
+		ForkJoinPool pool1 = new ForkJoinPool(1);
+		ForkJoinPool pool4 = new ForkJoinPool(4);
+		long[] stats1 = Battle.parallelStats(nbVals, nbGames, factory.create(seed), pool1);
+		long[] stats4 = Battle.parallelStats(nbVals, nbGames, factory.create(seed), pool4);
+		pool1.shutdown();
+		pool4.shutdown();
+		assert (Arrays.equals(stats1, stats4)) : "\nWith " + algorithm + " and the seed " + seed + ", parallelStats gives "
+				+ Arrays.toString(stats1) + " on 1 thread and " + Arrays.toString(stats4) + " on 4 threads.";
+	}
+
+	// test that two battles built from generators with the same seed are equal
+	static void testSameDeal(String algorithm, int nbVals, long seed) {
+		RandomGeneratorFactory<SplittableGenerator> factory = RandomGeneratorFactory.of(algorithm);
+		Battle b1 = new Battle(nbVals, factory.create(seed));
+		Battle b2 = new Battle(nbVals, factory.create(seed));
+		assert (b1.equals(b2)) : "\nThe battles\n" + b1 + "\nand\n" + b2 + "\nwere dealt with the same generator.";
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test44.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the method parallelStats
+		System.out.print("test of the method parallelStats ... ");
+		testReproducible(5, 1000, 42);
+		testReproducible(13, 5000, 2025);
+		testGenerator("L64X128MixRandom", 13, 2000, 7);
+		System.out.println("[OK]");
+
+		// test of the constructor of Battle with a generator
+		System.out.print("test of the constructor of Battle with a generator ... ");
+		for (long seed = 0; seed < 100; seed++)
+			testSameDeal("L64X128MixRandom", 13, seed);
+		System.out.println("[OK]");
+
+		Battle.stats(13, 100000, 2025);
+	}
+}
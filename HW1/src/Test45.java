@@ -0,0 +1,69 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class Test45 {
+
+	// plays all the distinct deals of the deck of nbVals values with game(), without memo
+	static void naiveCount(int nbVals, int[] deal, int i, int[] remaining, long[] stats) {
+		if (i == deal.length) {
+			Battle b = new Battle();
+			for (int j = 0; j < deal.length; j += 2) {
+				b.player1.cards.addLast(deal[j]);
+				b.player2.cards.addLast(deal[j + 1]);
+			}
+			stats[b.game()]++;
+			return;
+		}
+		for (int v = 1; v <= nbVals; v++) {
+			if (remaining[v] == 0)
+				continue;
+			remaining[v]--;
+			deal[i] = v;
+			naiveCount(nbVals, deal, i + 1, remaining, stats);
+			remaining[v]++;
+		}
+	}
+
+	// test the exact statistics against a naive enumeration
+	static void testCount(int nbVals, long nbDeals) {
+		long[] expected = new long[4];
+		int[] remaining = new int[nbVals + 1];
+		Arrays.fill(remaining, 4);
+		naiveCount(nbVals, new int[4 * nbVals], 0, remaining, expected);
+		for (int parallelism : new int[] { 1, 4 }) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			long[] stats = DealEnumerator.count(nbVals, pool);
+			pool.shutdown();
+			assert (stats[0] + stats[1] + stats[2] + stats[3] == nbDeals) : "\nThere are " + nbDeals
+					+ " deals with " + nbVals + " values, not " + Arrays.toString(stats) + ".";
+			assert (Arrays.equals(stats, expected)) : "\nWith " + nbVals + " values, DealEnumerator.count gives "
+					+ Arrays.toString(stats) + " instead of " + Arrays.toString(expected) + ".";
+		}
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test45.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the exact statistics
+		System.out.print("test of the method DealEnumerator.count ... ");
+		testCount(1, 1);
+		testCount(2, 70);
+		testCount(3, 34650);
+		System.out.println("[OK]");
+
+		// the 63,063,000 deals of 4 values take minutes, they are played by java Bench deals
+		try {
+			DealEnumerator.count(DealEnumerator.MAX_VALUES + 1, ForkJoinPool.commonPool());
+			assert (false) : "\nDealEnumerator.count should refuse " + (DealEnumerator.MAX_VALUES + 1) + " values.";
+		} catch (IllegalArgumentException e) {
+		}
+
+		Battle.exactStats(3);
+	}
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+public class Test46 {
+
+	// test that game() gives the same result with and without a transposition table
+	static void testSameOutcomes(int nbVals, int nbGames, TranspositionTable table) {
+		SplittableRandom random = new SplittableRandom(nbVals);
+		for (int i = 0; i < nbGames; i++) {
+			Battle b = new Battle(nbVals, random);
+			int o = b.game();
+			b.table = table;
+			int r = b.game();
+			assert (r == o) : "\nWith a transposition table, game() returns " + r + " instead of " + o
+					+ " for the battle\n" + b;
+		}
+	}
+
+	// test that the table stays within its capacity
+	static void testCapacity(int capacity) {
+		TranspositionTable table = new TranspositionTable(capacity);
+		testSameOutcomes(13, 2000, table);
+		assert (table.size() <= capacity) : "\nThe table holds " + table.size() + " states for a capacity of "
+				+ capacity + ".";
+		assert (table.evictions() > 0) : "\nThe table should have evicted states.";
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test46.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the transposition table
+		System.out.print("test of game() with a transposition table ... ");
+		TranspositionTable table = new TranspositionTable(1 << 16);
+		testSameOutcomes(4, 5000, table);
+		testSameOutcomes(13, 1000, table);
+		assert (table.hits() > 0) : "\nThe table was never used: " + table + ".";
+		testCapacity(4 * TranspositionTable.SEGMENTS);
+		System.out.println("[OK]");
+
+		// test of parallelStats with a transposition table, which random games of 4 values share
+		System.out.print("test of parallelStats with a transposition table ... ");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int nbVals : new int[] { 4, 6 }) {
+			long[] expected = Battle.parallelStats(nbVals, 20000, 11, pool);
+			table = new TranspositionTable(1 << 16);
+			long[] stats = Battle.parallelStats(nbVals, 20000, new SplittableRandom(11), pool, table);
+			assert (Arrays.equals(stats, expected)) : "\nWith a transposition table, parallelStats gives "
+					+ Arrays.toString(stats) + " instead of " + Arrays.toString(expected) + ".";
+			assert (nbVals > 4 || table.hits() > 0) : "\nThe games of " + nbVals + " values never shared a state: "
+					+ table + ".";
+			System.out.print("(" + nbVals + " values: " + table + ") ");
+		}
+		System.out.println("[OK]");
+
+		// the games are played to their end when metrics are collected, even with a table
+		System.out.print("test of parallelStats with a transposition table and metrics ... ");
+		MetricsCollector metrics = new MetricsCollector();
+		Battle.parallelStats(4, 20000, new SplittableRandom(11), pool, null, metrics);
+		GameMetrics expected = metrics.snapshot();
+		metrics = new MetricsCollector();
+		table = new TranspositionTable(1 << 16);
+		Battle.parallelStats(4, 20000, new SplittableRandom(11), pool, table, metrics);
+		GameMetrics all = metrics.snapshot();
+		pool.shutdown();
+		assert (all.rounds.toString().equals(expected.rounds.toString())) : "\nWith a transposition table, the "
+				+ "rounds are " + all.rounds + " instead of " + expected.rounds + ".";
+		assert (table.hits() + table.misses() == 0) : "\nThe table was read while metrics were collected: " + table
+				+ ".";
+		System.out.println("[OK]");
+	}
+
+}
@@ -0,0 +1,62 @@
+import java.util.SplittableRandom;
+
+public class Test47 {
+
+	// test that a battle is decoded as it was encoded, at every round of its game
+	static void testRoundTrip(int nbVals, int rounds, long seed) {
+		Battle b = new Battle(nbVals, new SplittableRandom(seed));
+		for (int i = 0; i < rounds && !b.isOver(); i++) {
+			// leave some cards in the trick
+			b.trick.pick(b.player1);
+			b.trick.pick(b.player2);
+			BattleState s = new BattleState(b);
+			Battle d = s.toBattle();
+			assert (d.equals(b)) : "\nThe battle\n" + b + "\nis decoded as\n" + d;
+			assert (s.bitsPerCard() == 32 - Integer.numberOfLeadingZeros(nbVals))
+					: "\nThe cards of a game with " + nbVals + " values should be encoded on "
+					+ (32 - Integer.numberOfLeadingZeros(nbVals)) + " bits, not " + s.bitsPerCard() + ".";
+			BattleState t = new BattleState(s.words());
+			assert (t.equals(s) && t.hashCode() == s.hashCode()) : "\nA state rebuilt from its words should be equal.";
+			b.trick.pickAll(b.player1);
+			b.oneRound();
+		}
+	}
+
+	// test that equal battles and only them have equal states
+	static void testEquality(int nbVals, long seed) {
+		Battle b1 = new Battle(nbVals, new SplittableRandom(seed));
+		Battle b2 = b1.copy();
+		assert (new BattleState(b1).equals(new BattleState(b2))) : "\nEqual battles should have equal states.";
+		b2.player1.pick(b2.player2);
+		assert (!new BattleState(b1).equals(new BattleState(b2))) : "\nDifferent battles should have different states.";
+		// same cards, different boundary between the decks
+		Battle b3 = new Battle(b1.player1.copy(), b1.player2.copy(), new Deck());
+		b3.trick.pick(b3.player2);
+		Battle b4 = new Battle(b1.player1.copy(), b1.player2.copy(), new Deck());
+		b4.player1.pick(b4.player2);
+		b4.trick.pick(b4.player1);
+		b4.player1.pick(b4.player2);
+		assert (!new BattleState(b3).equals(new BattleState(b4))) : "\nThe boundaries of the decks should be encoded.";
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test47.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the encoding of battles
+		System.out.print("test of the class BattleState ... ");
+		for (long seed = 0; seed < 50; seed++) {
+			testRoundTrip(1, 10, seed);
+			testRoundTrip(7, 100, seed);
+			testRoundTrip(13, 100, seed);
+			testRoundTrip(100, 100, seed);
+			testEquality(13, seed);
+		}
+		System.out.println("[OK]");
+	}
+}
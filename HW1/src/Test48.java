@@ -0,0 +1,74 @@
+import java.util.SplittableRandom;
+
+public class Test48 {
+
+	// reference round of the game, with one recursive call per tie
+	static boolean recursiveRound(Battle b) {
+		if (b.isOver())
+			return false;
+		final int card1 = b.trick.pick(b.player1);
+		final int card2 = b.trick.pick(b.player2);
+		if (card1 == card2) {
+			if (b.isOver())
+				return false;
+			b.trick.pick(b.player1);
+			b.trick.pick(b.player2);
+			return recursiveRound(b);
+		}
+		if (card1 > card2)
+			b.player1.pickAll(b.trick);
+		else
+			b.player2.pickAll(b.trick);
+		return true;
+	}
+
+	// test that playRound plays the same rounds as the recursive version
+	static void testPlayRound(int nbVals, long seed) {
+		Battle b = new Battle(nbVals, new SplittableRandom(seed));
+		Battle r = b.copy();
+		for (int i = 0; i < 1000; i++) {
+			int size1 = b.player1.cards.size();
+			int code = b.playRound();
+			boolean o = recursiveRound(r);
+			assert (b.equals(r)) : "\nplayRound and the recursive round disagree, giving\n" + b + "\nand\n" + r;
+			assert ((code != Battle.ROUND_OVER) == o) : "\nplayRound returns " + code + " for the battle\n" + r;
+			if (code == Battle.ROUND_OVER)
+				return;
+			assert ((code == Battle.ROUND_PLAYER1) == (b.player1.cards.size() > size1))
+					: "\nplayRound returns " + code + " but player1 has " + b.player1.cards.size() + " cards instead of "
+							+ size1 + ".";
+		}
+	}
+
+	// test that playRounds stops at the end of the game
+	static void testPlayRounds(int nbVals, long seed) {
+		Battle b = new Battle(nbVals, new SplittableRandom(seed));
+		Battle r = b.copy();
+		long played = b.playRounds(500);
+		long expected = 0;
+		while (expected < 500 && r.oneRound())
+			expected++;
+		assert (played == expected && b.equals(r)) : "\nplayRounds(500) plays " + played + " rounds instead of "
+				+ expected + ".";
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test48.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the methods playRound and playRounds
+		System.out.print("test of the methods playRound and playRounds ... ");
+		for (long seed = 0; seed < 200; seed++) {
+			testPlayRound(2, seed);
+			testPlayRound(13, seed);
+			testPlayRounds(3, seed);
+			testPlayRounds(13, seed);
+		}
+		System.out.println("[OK]");
+	}
+}
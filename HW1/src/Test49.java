@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+public class Test49 {
+
+	// test that the replayer rebuilds every state of recorded games
+	static void testReplay(int nbVals, int nbGames, int turns) throws IOException {
+		Path path = Files.createTempFile("battle", ".trace");
+		SplittableRandom random = new SplittableRandom(nbVals);
+		Battle[] battles = new Battle[nbGames];
+		int[] outcomes = new int[nbGames];
+		try (TraceRecorder recorder = new TraceRecorder(path)) {
+			for (int g = 0; g < nbGames; g++) {
+				battles[g] = new Battle(nbVals, random);
+				Battle b = battles[g].copy();
+				b.trace = recorder;
+				outcomes[g] = turns < 0 ? b.game() : b.game(turns);
+			}
+		}
+		TraceReplayer replayer = new TraceReplayer(path);
+		assert (replayer.nbGames() == nbGames) : "\nThe trace holds " + replayer.nbGames() + " games instead of "
+				+ nbGames + ".";
+		for (int g = 0; g < nbGames; g++) {
+			assert (replayer.outcome(g) == outcomes[g]) : "\nThe trace gives the result " + replayer.outcome(g)
+					+ " instead of " + outcomes[g] + " for the game " + g + ".";
+			Battle b = battles[g].copy();
+			for (long r = 0; r <= replayer.nbRounds(g); r++) {
+				Battle replayed = replayer.stateAfter(g, r);
+				assert (replayed.equals(b)) : "\nAfter " + r + " rounds of the game " + g + ", the replayer gives\n"
+						+ replayed + "\ninstead of\n" + b;
+				b.oneRound();
+			}
+		}
+		Files.delete(path);
+	}
+
+	// returns the time in ms to play the games of nbVals values, recorded in a file or not
+	static double time(int nbVals, int nbGames, boolean recorded) throws IOException {
+		Path path = Files.createTempFile("battle", ".trace");
+		Battle[] battles = new Battle[nbGames];
+		SplittableRandom random = new SplittableRandom(1);
+		for (int g = 0; g < nbGames; g++)
+			battles[g] = new Battle(nbVals, random);
+		long start = System.nanoTime();
+		try (TraceRecorder recorder = new TraceRecorder(path)) {
+			for (Battle b : battles) {
+				b.trace = recorded ? recorder : null;
+				b.game();
+			}
+		}
+		long end = System.nanoTime();
+		Files.delete(path);
+		return (end - start) / 1e6;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		// checks that asserts are enabled
+		if (!Test49.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the recorder and the replayer
+		System.out.print("test of TraceRecorder and TraceReplayer ... ");
+		testReplay(2, 50, -1);
+		testReplay(13, 50, -1);
+		testReplay(13, 50, 100);
+		System.out.println("[OK]");
+
+		// cost of the recording
+		for (int i = 0; i < 3; i++) {
+			time(13, 2000, false);
+			time(13, 2000, true);
+		}
+		double plain = time(13, 2000, false);
+		double recorded = time(13, 2000, true);
+		System.out.println(String.format("2000 games of 13 values: %.1f ms, %.1f ms when recorded", plain, recorded));
+	}
+}
@@ -0,0 +1,65 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+public class Test50 {
+
+	// test that the batch plays the same deals as Battle(nbVals, random) with the same results as game()
+	static void testBatch(int nbVals, int nbGames, long seed) {
+		long[] stats = new BattleBatch(nbVals, nbGames, new SplittableRandom(seed)).run();
+		long[] expected = new long[4];
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int g = 0; g < nbGames; g++)
+			expected[new Battle(nbVals, random).game()]++;
+		for (int i = 0; i < 4; i++)
+			assert (stats[i] == expected[i]) : "\nThe batch of " + nbGames + " games with " + nbVals
+					+ " values counts " + stats[i] + " games of result " + i + " instead of " + expected[i] + ".";
+	}
+
+	// test that the batch is dealt like the constructor Battle(nbVals, random)
+	static void testDeal(int nbVals, long seed) {
+		BattleBatch batch = new BattleBatch(nbVals, 10, new SplittableRandom(seed));
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int g = 0; g < 10; g++) {
+			Battle b = new Battle(nbVals, random);
+			assert (batch.size1(g) == b.player1.cards.size() && batch.size2(g) == b.player2.cards.size())
+					: "\nThe game " + g + " of the batch is not dealt as\n" + b;
+			for (int i = 0; i < batch.size1(g); i++)
+				assert (batch.card1(g, i) == b.player1.cards.get(i) && batch.card2(g, i) == b.player2.cards.get(i))
+						: "\nThe game " + g + " of the batch is not dealt as\n" + b;
+		}
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test50.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the class BattleBatch
+		System.out.print("test of the class BattleBatch ... ");
+		for (long seed = 0; seed < 20; seed++) {
+			testDeal(2, seed);
+			testDeal(13, seed);
+			testBatch(1, 50, seed);
+			testBatch(2, 200, seed);
+			testBatch(3, 200, seed);
+			testBatch(13, 200, seed);
+		}
+		System.out.println("[OK]");
+
+		// throughput of Battle.stats on the batches
+		System.out.print("test of parallelStats on batches ... ");
+		for (int i = 0; i < 3; i++)
+			Battle.parallelStats(4, 1_000_000, 1, ForkJoinPool.commonPool());
+		long start = System.nanoTime();
+		long[] stats = Battle.parallelStats(4, 1_000_000, 1, ForkJoinPool.commonPool());
+		double seconds = (System.nanoTime() - start) / 1e9;
+		assert (stats[0] + stats[1] + stats[2] + stats[3] == 1_000_000) : "\nparallelStats plays "
+				+ (stats[0] + stats[1] + stats[2] + stats[3]) + " games instead of 1000000.";
+		System.out.println("[OK]");
+		System.out.println(String.format("%.0f games of 4 values per second", 1_000_000 / seconds));
+	}
+}
@@ -0,0 +1,107 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+public class Test51 {
+
+	// test that the percentiles of the histogram are those of the sorted values, up to 1/32
+	static void testHistogram(long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		int n = 1 + random.nextInt(5000);
+		long[] values = new long[n];
+		Histogram h = new Histogram();
+		Histogram left = new Histogram();
+		Histogram right = new Histogram();
+		for (int i = 0; i < n; i++) {
+			values[i] = random.nextLong(1L << random.nextInt(1, 40));
+			h.record(values[i]);
+			(i % 2 == 0 ? left : right).record(values[i]);
+		}
+		left.merge(right);
+		Arrays.sort(values);
+		for (double p : new double[] { 0, 10, 50, 90, 99, 99.9, 100 }) {
+			long exact = values[(int) Math.max(0, Math.ceil(p / 100 * n) - 1)];
+			long v = h.valueAtPercentile(p);
+			assert (v >= exact && v - exact <= exact / 32) : "\nThe percentile " + p + " is " + v + " instead of "
+					+ exact + ".";
+			assert (left.valueAtPercentile(p) == v) : "\nThe merged histogram gives the percentile " + p + " "
+					+ left.valueAtPercentile(p) + " instead of " + v + ".";
+		}
+		assert (h.count() == n && left.count() == n && h.max() == values[n - 1]) : "\nThe histogram counts "
+				+ h.count() + " values of maximum " + h.max() + ".";
+	}
+
+	// test the metrics of game(turns) against the rounds played one by one
+	static void testTurns(int nbVals, long seed) {
+		Battle b = new Battle(nbVals, new SplittableRandom(seed));
+		Battle r = b.copy();
+		b.metrics = new GameMetrics();
+		b.game(300);
+		long rounds = 0;
+		while (rounds < 300 && r.oneRound())
+			rounds++;
+		assert (b.metrics.rounds.max() == rounds) : "\nThe metrics count " + b.metrics.rounds.max()
+				+ " rounds instead of " + rounds + ".";
+	}
+
+	// test the pre-period and the length of the cycle of infinite games against the states met
+	static void testCycle(int nbVals, long seed, int detection) {
+		Battle b = new Battle(nbVals, new SplittableRandom(seed));
+		Battle r = b.copy();
+		b.detection = detection;
+		b.metrics = new GameMetrics();
+		if (b.game() != 3)
+			return;
+		HashMap<BattleState, Long> seen = new HashMap<>();
+		long i = 0;
+		while (!seen.containsKey(new BattleState(r))) {
+			seen.put(new BattleState(r), i++);
+			r.oneRound();
+		}
+		long prePeriod = seen.get(new BattleState(r));
+		assert (b.metrics.prePeriod.max() == prePeriod && b.metrics.cycleLength.max() == i - prePeriod)
+				: "\nThe metrics give a pre-period of " + b.metrics.prePeriod.max() + " and a cycle of "
+						+ b.metrics.cycleLength.max() + " instead of " + prePeriod + " and " + (i - prePeriod) + ".";
+	}
+
+	public static void main(String[] args) {
+
+		// checks that asserts are enabled
+		if (!Test51.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.err.println("See the 'Enable assert' section of the HW preamble.");
+			System.exit(1);
+		}
+
+		// test of the class Histogram
+		System.out.print("test of the class Histogram ... ");
+		for (long seed = 0; seed < 100; seed++)
+			testHistogram(seed);
+		System.out.println("[OK]");
+
+		// test of the class GameMetrics
+		System.out.print("test of the class GameMetrics ... ");
+		for (long seed = 0; seed < 100; seed++) {
+			testTurns(13, seed);
+			for (int detection : new int[] { Battle.FLOYD, Battle.HASHED_FLOYD, Battle.BRENT }) {
+				testCycle(2, seed, detection);
+				testCycle(13, seed, detection);
+			}
+		}
+		System.out.println("[OK]");
+
+		// test of the metrics collected in parallel
+		System.out.print("test of parallelStats with metrics ... ");
+		MetricsCollector metrics = new MetricsCollector();
+		long[] stats = Battle.parallelStats(13, 20000, new SplittableRandom(7), new ForkJoinPool(4), null, metrics);
+		GameMetrics all = metrics.snapshot();
+		for (int i = 0; i < 4; i++)
+			assert (all.outcomes[i] == stats[i]) : "\nThe metrics count " + all.outcomes[i] + " games of result " + i
+					+ " instead of " + stats[i] + ".";
+		assert (all.rounds.count() == 20000 && all.cycleLength.count() == stats[3]) : "\nThe metrics count "
+				+ all.rounds.count() + " games and " + all.cycleLength.count() + " cycles.";
+		System.out.println("[OK]");
+		Battle.detailedStats(13, 20000, 7);
+	}
+}
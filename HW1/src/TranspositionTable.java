@@ -0,0 +1,96 @@
+/* Transposition table for the battle game.
+ * The outcomes of game() from states already met are kept in a bounded cache
+ * shared between games and between threads.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+class TranspositionTable { // bounded concurrent cache of the outcomes of game()
+    static final int SEGMENTS = 64; // number of independently locked parts, a power of 2
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // constructor of a table holding at most capacity states
+    TranspositionTable(int capacity) {
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(Math.max(1, capacity / SEGMENTS));
+    }
+
+    // returns the outcome of game() from state, or -1 if it is not in the table
+    int get(BattleState state) {
+        Segment segment = segmentOf(state);
+        Byte outcome;
+        synchronized (segment) {
+            outcome = segment.get(state);
+        }
+        if (outcome == null) {
+            misses.increment();
+            return -1;
+        }
+        hits.increment();
+        return outcome;
+    }
+
+    // records the outcome of game() from state, evicting the least recently used state if full
+    void put(BattleState state, int outcome) {
+        Segment segment = segmentOf(state);
+        synchronized (segment) {
+            segment.put(state, (byte) outcome);
+        }
+    }
+
+    private Segment segmentOf(BattleState state) {
+        return segments[(int) (state.longHash() >>> 32) & (SEGMENTS - 1)];
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            synchronized (segment) {
+                size += segment.size();
+            }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return size() + " states, " + hits() + " hits, " + misses() + " misses, " + evictions() + " evictions";
+    }
+
+    // part of the table, in least recently used order
+    private class Segment extends LinkedHashMap<BattleState, Byte> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BattleState, Byte> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
@@ -1,32 +1,115 @@
  
 /* HW2. Fruits and hash tables
- * This file contains 7 classes:
+ * This file contains 18 classes:
  * 		- Row represents a row of fruits,
+ * 		- Compatibility lists or generates the rows that can be stacked on each pair of stable rows,
+ * 		- Symmetry groups the stable rows and their pairs into orbits under complement and mirror,
  * 		- CountConfigurationsNaive counts stable configurations naively,
  * 		- Quadruple manipulates quadruplets,
  * 		- HashTable builds a hash table,
- * 		- CountConfigurationsHashTable counts stable configurations using our hash table,
+ * 		- LongHashTable is a hash table with open addressing from long keys to long values,
+ * 		- PersistentMemo keeps the memoized counts in files, from one run to the next,
+ * 		- CountConfigurationsHashTable counts stable configurations using our open addressing hash table,
  * 		- Triple manipulates triplets,
- * 		- CountConfigurationsHashMap counts stable configurations using the HashMap of java.
+ * 		- CountConfigurationsHashMap counts stable configurations using the HashMap of java,
+ * 		- CountConfigurationsDynamicProgramming counts stable configurations height by height,
+ * 		- LayerTask computes a layer of orbits of the dynamic programming in parallel,
+ * 		- CountConfigurationsTransferMatrix counts stable configurations with powers of a matrix,
+ * 		- Primes lists primes of 61 bits for the modular counts,
+ * 		- CountConfigurationsBrokenProfile counts stable configurations cell by cell,
+ * 		- CountConfigurationsParallel counts stable configurations in parallel with a shared memo,
+ * 		- PairTask counts in parallel the grids whose first lines are in a range of orbits of pairs.
  */
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.OptionalLong;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
+import java.util.stream.LongStream;
 
 class Row { // represent a row of fruits
-    private final int[] fruits;
+    // the row is the binary number whose digits are its fruits, the first fruit being
+    // the most significant one; it is held in bits if it has at most 64 fruits, and in
+    // words otherwise, from the least significant word
+    private final int width;
+    private final long bits;
+    private final long[] words;
 
     // empty row constructor
     Row() {
-        this.fruits = new int[0];
+        this(0, 0L);
     }
 
-    // constructor from the field fruits
+    // constructor of a row of at most 64 fruits from its binary number
+    Row(int width, long bits) {
+        this.width = width;
+        this.bits = bits;
+        this.words = null;
+    }
+
+    private Row(int width, long[] words) {
+        this.width = width;
+        this.bits = 0;
+        this.words = words;
+    }
+
+    // constructor from the fruits
     Row(int[] fruits) {
-        this.fruits = fruits;
+        this.width = fruits.length;
+        if (width <= 64) {
+            long x = 0;
+            for (int fruit : fruits)
+                x = 2 * x + fruit;
+            this.bits = x;
+            this.words = null;
+        } else {
+            this.bits = 0;
+            this.words = new long[(width + 63) >>> 6];
+            for (int i = 0; i < width; i++)
+                words[(width - 1 - i) >>> 6] |= (long) fruits[i] << ((width - 1 - i) & 63);
+        }
+    }
+
+    int width() {
+        return width;
+    }
+
+    // binary number of the row, if it has at most 64 fruits
+    long bits() {
+        return bits;
+    }
+
+    // i-th fruit of the row
+    int fruit(int i) {
+        final int j = width - 1 - i;
+        return (int) ((words == null ? bits >>> j : words[j >>> 6] >>> (j & 63)) & 1);
+    }
+
+    // mask of the fruits of a row of width at most 64
+    static long mask(int width) {
+        return width == 64 ? -1L : (1L << width) - 1;
     }
 
     // equals method to compare the row to an object o
@@ -35,57 +118,93 @@ class Row { // represent a row of fruits
         // we start by transforming the object o into an object of the class Row
         // here we suppose that o will always be of the class Row
         Row that = (Row) o;
-        // we check if the two rows have the same length
-        if (this.fruits.length != that.fruits.length)
-            return false;
-        // we check if the i-th fruits of the two rows coincide
-        for (int i = 0; i < this.fruits.length; ++i) {
-            if (this.fruits[i] != that.fruits[i])
-                return false;
-        }
-        // we have the equality of the two rows
-        return true;
+        // we check if the two rows have the same length and the same fruits
+        return this.width == that.width && this.bits == that.bits && Arrays.equals(this.words, that.words);
     }
 
-    // hash code of the row
+    // hash code of the row, the low 32 bits of its binary number
     @Override
     public int hashCode() {
-        int hash = 0;
-        for (int i = 0; i < fruits.length; ++i) {
-            hash = 2 * hash + fruits[i];
-        }
-        return hash;
+        return (int) (words == null ? bits : words[0]);
     }
 
     // string representing the row
     @Override
     public String toString() {
-        StringBuffer s = new StringBuffer();
-        for (int i = 0; i < fruits.length; ++i)
-            s.append(fruits[i]);
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < width; ++i)
+            s.append(fruit(i));
         return s.toString();
     }
 
+    // returns the row where each fruit is replaced by the other one
+    Row complemented() {
+        if (words == null)
+            return new Row(width, ~bits & mask(width));
+        final long[] w = new long[words.length];
+        for (int k = 0; k < w.length; k++)
+            w[k] = ~words[k] & mask(width, k);
+        return new Row(width, w);
+    }
+
+    // returns the row read from right to left
+    Row mirrored() {
+        if (words == null)
+            return new Row(width, width == 0 ? 0 : Long.reverse(bits) >>> (64 - width));
+        final int[] fruits = new int[width];
+        for (int i = 0; i < width; i++)
+            fruits[i] = fruit(width - 1 - i);
+        return new Row(fruits);
+    }
+
     // Question 1
 
     // returns a new row by adding fruit to the end of the row
     Row extendedWith(int fruit) {
-        final int[] extendedFruits = new int[fruits.length + 1];
-        System.arraycopy(fruits, 0, extendedFruits, 0, fruits.length);
-        extendedFruits[fruits.length] = fruit;
-        return new Row(extendedFruits);
+        if (width < 64)
+            return new Row(width + 1, bits << 1 | fruit);
+        final long[] source = words == null ? new long[] { bits } : words;
+        final long[] extended = new long[(width + 64) >>> 6];
+        for (int k = 0; k < extended.length; k++)
+            extended[k] = (k < source.length ? source[k] << 1 : 0) | (k > 0 ? source[k - 1] >>> 63 : fruit);
+        return new Row(width + 1, extended);
+    }
+
+    // word k of the binary number x of a row of words shifted right by s < 64
+    private static long shifted(long[] x, int k, int s) {
+        return s == 0 ? x[k] : x[k] >>> s | (k + 1 < x.length ? x[k + 1] << (64 - s) : 0);
     }
 
-    // check row is stable or not
+    // mask of the word k of a row of width above 64
+    private static long mask(int width, int k) {
+        return k < (width - 1) >>> 6 ? -1L : mask(width - 64 * k);
+    }
+
+    // check row is stable or not: no three adjacent fruits of the same type
     boolean isStable() {
-        for (int i = 0; i < fruits.length - 2; i++)
-            if (fruits[i] == fruits[i + 1] && fruits[i + 1] == fruits[i + 2])
+        if (words == null) {
+            final long x = bits;
+            final long y = ~bits & mask(width);
+            return ((x & x >>> 1 & x >>> 2) | (y & y >>> 1 & y >>> 2)) == 0;
+        }
+        final long[] y = new long[words.length];
+        for (int k = 0; k < words.length; k++)
+            y[k] = ~words[k] & mask(width, k);
+        for (int k = 0; k < words.length; k++)
+            if ((words[k] & shifted(words, k, 1) & shifted(words, k, 2)) != 0
+                    || (y[k] & shifted(y, k, 1) & shifted(y, k, 2)) != 0)
                 return false;
         return true;
     }
 
-    // return the list of all stable rows of width
+    // return the list of all stable rows of width, in increasing order of their binary numbers
     static LinkedList<Row> allStableRows(int width) {
+        if (width <= MAX_MASK_WIDTH) {
+            final LinkedList<Row> rows = new LinkedList<>();
+            for (long x : stableRowMasks(width))
+                rows.add(new Row(width, x));
+            return rows;
+        }
         LinkedList<Row> rows = new LinkedList<>();
         rows.add(new Row());
         for (int i = 0; i < width; i++) {
@@ -103,33 +222,328 @@ class Row { // represent a row of fruits
         return rows;
     }
 
+    // Enumeration of the stable rows as binary numbers
+
+    static final int MAX_MASK_WIDTH = 63; // the binary numbers of the rows are non negative longs
+
+    // return the number of stable rows of width, without building them: a stable row is
+    // read by an automaton whose state is the length (1 or 2) of the run of its last fruit
+    static long countStableRows(int width) {
+        if (width == 0) return 1;
+        long run1 = 2; // rows of width whose last run has length 1
+        long run2 = 0; // and 2
+        for (int i = 1; i < width; i++) {
+            final long t = run1;
+            run1 = run1 + run2; // the next fruit is the other one
+            run2 = t; // the next fruit is the same one
+        }
+        return run1 + run2;
+    }
+
+    // return the smallest binary number of a stable row of width larger than x, or -1
+    // if there is none; when three equal fruits are found, all the rows sharing the
+    // fruits down to the highest such triple are skipped at once
+    static long nextStableRow(long x, int width) {
+        if (width > MAX_MASK_WIDTH)
+            throw new IllegalArgumentException("the rows of width " + width + " do not fit in a long");
+        long y = x + 1;
+        while (y >= 0 && y >>> width == 0) {
+            final long z = ~y & mask(width);
+            final long triples = (y & y >>> 1 & y >>> 2) | (z & z >>> 1 & z >>> 2);
+            if (triples == 0)
+                return y;
+            final int i = 63 - Long.numberOfLeadingZeros(triples);
+            y = ((y >>> i) + 1) << i;
+        }
+        return -1;
+    }
+
+    // return the binary numbers of the stable rows of width, in increasing order
+    static LongStream stableRowStream(int width) {
+        return LongStream.iterate(nextStableRow(-1, width), x -> x >= 0, x -> nextStableRow(x, width));
+    }
+
+    // return the binary numbers of the stable rows of width, in increasing order, in an array
+    static long[] stableRowMasks(int width) {
+        final long count = countStableRows(width);
+        if (count > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException(
+                    "the " + count + " stable rows of width " + width + " do not fit in an array");
+        final long[] masks = new long[(int) count];
+        long x = -1;
+        for (int i = 0; i < masks.length; i++)
+            masks[i] = x = nextStableRow(x, width);
+        return masks;
+    }
 
     // check if the row can be stacked with rows r1 and r2
     // without having three fruits of the same type adjacent
     boolean areStackable(Row r1, Row r2) {
-        if (fruits.length != r1.fruits.length || fruits.length != r2.fruits.length)
+        if (width != r1.width || width != r2.width)
             return false;
-        for (int i = 0; i < this.fruits.length; i++)
-            if (fruits[i] == r1.fruits[i] && fruits[i] == r2.fruits[i])
+        if (words == null)
+            return ((bits & r1.bits & r2.bits) | ~(bits | r1.bits | r2.bits) & mask(width)) == 0;
+        for (int k = 0; k < words.length; k++)
+            if (((words[k] & r1.words[k] & r2.words[k]) | ~(words[k] | r1.words[k] | r2.words[k])
+                    & mask(width, k)) != 0)
                 return false;
         return true;
     }
 }
 
+// Precomputation of the stackable rows, or their generation for the widest rows
+class Compatibility { // rows that can be stacked on each pair of stable rows of a width
+    // kept while they are used only, as the counters of different widths rarely run together
+    private static final ConcurrentHashMap<Integer, WeakReference<Compatibility>> cache = new ConcurrentHashMap<>();
+    static final int MAX_RANK_WIDTH = 20; // width up to which the index of a row is read in a table
+    // width up to which the stackable rows are stored: start and next take 100 MB for
+    // width 13, and 3.4 times more for each column above, 4 GB for width 16
+    static final int MAX_LISTED_WIDTH = 13;
+
+    final int width;
+    final long[] masks; // binary numbers of the stable rows of the width, in increasing order
+    final Row[] rows; // stable rows of the width, in the order of allStableRows
+    final int size; // number of stable rows
+    private final int[] rank; // index of each binary number in masks, -1 if it is not stable, or null
+    // up to MAX_LISTED_WIDTH, the rows l stackable on the pair (rows[j], rows[k]) are
+    // rows[next[i]] for start[j * size + k] <= i < start[j * size + k + 1], in increasing
+    // order, and above, start and next are null and the rows l are given by nextSuccessor
+    final int[] start;
+    final int[] next;
+
+    private Compatibility(int width) {
+        this.width = width;
+        masks = Row.stableRowMasks(width);
+        size = masks.length;
+        rows = new Row[size];
+        for (int i = 0; i < size; i++)
+            rows[i] = new Row(width, masks[i]);
+        if (width <= MAX_RANK_WIDTH) {
+            rank = new int[1 << width];
+            Arrays.fill(rank, -1);
+            for (int i = 0; i < size; i++)
+                rank[(int) masks[i]] = i;
+        } else
+            rank = null;
+        if (width > MAX_LISTED_WIDTH) {
+            start = null;
+            next = null;
+            return;
+        }
+        start = new int[size * size + 1];
+        int[] successors = new int[size * size];
+        int length = 0;
+        for (int j = 0; j < size; j++)
+            for (int k = 0; k < size; k++) {
+                for (long l = nextSuccessor(j, k, -1); l >= 0; l = nextSuccessor(j, k, l)) {
+                    if (length == successors.length)
+                        successors = Arrays.copyOf(successors, 2 * length);
+                    successors[length++] = indexOf(l);
+                }
+                start[j * size + k + 1] = length;
+            }
+        next = Arrays.copyOf(successors, length);
+    }
+
+    // returns the compatibility of the stable rows of width, computed once per width while it is used
+    static Compatibility of(int width) {
+        final WeakReference<Compatibility> reference = cache.get(width);
+        Compatibility c = reference == null ? null : reference.get();
+        if (c == null) {
+            c = new Compatibility(width);
+            cache.put(width, new WeakReference<>(c));
+        }
+        return c;
+    }
+
+    // index of the stable row of binary number x in rows, or -1 if it is not stable
+    int indexOf(long x) {
+        if (rank != null)
+            return x >>> width == 0 ? rank[(int) x] : -1;
+        final int i = Arrays.binarySearch(masks, x);
+        return i >= 0 ? i : -1;
+    }
+
+    // index of the row r in rows, or -1 if it is not a stable row of the width
+    int indexOf(Row r) {
+        return r.width() == width ? indexOf(r.bits()) : -1;
+    }
+
+    // returns the compatibility of the width of r1 if r1 and r2 are stable rows of that width and
+    // list holds each of its stable rows once, or null otherwise, where the counters scan list instead
+    static Compatibility forRows(Row r1, Row r2, LinkedList<Row> list) {
+        final int width = r1.width();
+        if (width > Row.MAX_MASK_WIDTH || r2.width() != width || list.size() != Row.countStableRows(width))
+            return null;
+        final Compatibility c = of(width);
+        if (c.indexOf(r1) < 0 || c.indexOf(r2) < 0)
+            return null;
+        final boolean[] listed = new boolean[c.size];
+        for (Row r : list) {
+            final int i = c.indexOf(r);
+            if (i < 0 || listed[i])
+                return null;
+            listed[i] = true;
+        }
+        return c;
+    }
+
+    // return the smallest binary number larger than x of a row stackable on (rows[j], rows[k]),
+    // or -1 if there is none, which lists the rows l of the widths where they are not stored:
+    // a fruit of l is 1 where rows[j] and rows[k] have
+    // 0, 0 where they have 1, and free where they differ, so l runs over the submasks of the
+    // free fruits, skipping all those sharing the fruits down to the highest triple as in
+    // Row.nextStableRow; as rows[j] and rows[k] are stable, every triple of l holds a free fruit
+    long nextSuccessor(int j, int k, long x) {
+        final long a = masks[j];
+        final long b = masks[k];
+        final long free = a ^ b;
+        final long ones = ~(a | b) & Row.mask(width);
+        long sub;
+        if (x < 0)
+            sub = 0;
+        else if ((x & free) == free)
+            return -1;
+        else
+            sub = ((x | ~free) + 1) & free;
+        while (true) {
+            final long y = ones | sub;
+            final long z = ~y & Row.mask(width);
+            final long triples = (y & y >>> 1 & y >>> 2) | (z & z >>> 1 & z >>> 2);
+            if (triples == 0)
+                return y;
+            // the free fruits below the highest triple are set, so that the next submask changes one above
+            final long filled = sub | free & ((1L << (63 - Long.numberOfLeadingZeros(triples))) - 1);
+            if (filled == free)
+                return -1;
+            sub = ((filled | ~free) + 1) & free;
+        }
+    }
+
+    // number of bytes of the arrays masks, rank, start and next, the rows being only read by the counters on Row
+    long footprint() {
+        return (long) Long.BYTES * masks.length + (rank == null ? 0 : (long) Integer.BYTES * rank.length)
+                + (start == null ? 0 : (long) Integer.BYTES * (start.length + next.length));
+    }
+}
+
+// Symmetries of the grids
+class Symmetry { // orbits of the stable rows and of their pairs under complement and mirror
+    private static final ConcurrentHashMap<Integer, WeakReference<Symmetry>> cache = new ConcurrentHashMap<>();
+
+    // the grids are invariant under the group {identity, complement, mirror, both}
+    // applied to all their rows, so the number of grids whose first lines are a pair
+    // of rows only depends on the orbit of the pair
+    final Compatibility c;
+    final int[] complement; // index of the complement of each row
+    final int[] mirror; // index of the mirror of each row
+    final int[] rowOrbit; // orbit of each row
+    final int[] rowRepresentatives; // smallest row of each orbit
+    final int[] rowMultiplicity; // number of rows of each orbit
+    final int[] pairOrbit; // orbit of each pair j * size + k
+    final int[] pairRepresentatives; // smallest pair j * size + k of each orbit
+    final int[] pairMultiplicity; // number of pairs of each orbit
+
+    private Symmetry(int width) {
+        c = Compatibility.of(width);
+        final int size = c.size;
+        complement = new int[size];
+        mirror = new int[size];
+        for (int j = 0; j < size; j++) {
+            complement[j] = c.indexOf(c.rows[j].complemented());
+            mirror[j] = c.indexOf(c.rows[j].mirrored());
+        }
+        rowOrbit = new int[size];
+        final int nbRows = orbits(size, j -> complement[j], j -> mirror[j], rowOrbit);
+        rowRepresentatives = new int[nbRows];
+        rowMultiplicity = new int[nbRows];
+        tally(rowOrbit, rowRepresentatives, rowMultiplicity);
+        // the orbits of the pairs are the only array of size^2 values
+        pairOrbit = new int[size * size];
+        final int nbPairs = orbits(size * size, u -> complement[u / size] * size + complement[u % size],
+                u -> mirror[u / size] * size + mirror[u % size], pairOrbit);
+        pairRepresentatives = new int[nbPairs];
+        pairMultiplicity = new int[nbPairs];
+        tally(pairOrbit, pairRepresentatives, pairMultiplicity);
+    }
+
+    // fills the orbit of each of the n elements under the group generated by the
+    // involutions f and g, which commute, and returns the number of orbits
+    private static int orbits(int n, java.util.function.IntUnaryOperator f, java.util.function.IntUnaryOperator g,
+            int[] orbit) {
+        Arrays.fill(orbit, -1);
+        int nbOrbits = 0;
+        for (int u = 0; u < n; u++) {
+            if (orbit[u] >= 0)
+                continue;
+            final int fu = f.applyAsInt(u);
+            final int gu = g.applyAsInt(u);
+            orbit[u] = orbit[fu] = orbit[gu] = orbit[f.applyAsInt(gu)] = nbOrbits++;
+        }
+        return nbOrbits;
+    }
+
+    // fills the smallest element and the number of elements of each orbit
+    private static void tally(int[] orbit, int[] representatives, int[] multiplicity) {
+        for (int u = orbit.length - 1; u >= 0; u--) {
+            representatives[orbit[u]] = u;
+            multiplicity[orbit[u]]++;
+        }
+    }
+
+    // returns the symmetries of the stable rows of width, computed once per width while they are used
+    static Symmetry of(int width) {
+        final WeakReference<Symmetry> reference = cache.get(width);
+        Symmetry s = reference == null ? null : reference.get();
+        if (s == null) {
+            s = new Symmetry(width);
+            cache.put(width, new WeakReference<>(s));
+        }
+        return s;
+    }
+
+    // returns the representative j * size + k of the orbit of the pair (j, k)
+    int canonical(int j, int k) {
+        return pairRepresentatives[pairOrbit[j * c.size + k]];
+    }
+}
+
 // Naive counting
 class CountConfigurationsNaive {  // counting of stable configurations
 
     // Question 2
 
     // returning the number of grids whose first lines are r1 and r2,
-    // whose lines are lines of rows and whose height is height
+    // whose lines are lines of rows and whose height is height;
+    // when rows are all the stable rows of the width of r1, their indices are used
     static long count(Row r1, Row r2, LinkedList<Row> rows, int height) {
+        final Compatibility c = Compatibility.forRows(r1, r2, rows);
+        if (c != null) return count(c.indexOf(r1), c.indexOf(r2), c, height);
+        return scan(r1, r2, rows, height);
+    }
+
+    // same scanning rows for the rows stackable on r1 and r2
+    private static long scan(Row r1, Row r2, LinkedList<Row> rows, int height) {
         if (height <= 1) return 0;
         if (height == 2) return 1;
         long counter = 0;
         for (Row row : rows)
             if (row.areStackable(r1, r2))
-                counter += count(r2, row, rows, height - 1);
+                counter += scan(r2, row, rows, height - 1);
+        return counter;
+    }
+
+    // same with the first lines c.rows[j] and c.rows[k]
+    static long count(int j, int k, Compatibility c, int height) {
+        if (height <= 1) return 0;
+        if (height == 2) return 1;
+        long counter = 0;
+        if (c.start != null)
+            for (int i = c.start[j * c.size + k]; i < c.start[j * c.size + k + 1]; i++)
+                counter += count(k, c.next[i], c, height - 1);
+        else
+            for (long l = c.nextSuccessor(j, k, -1); l >= 0; l = c.nextSuccessor(j, k, l))
+                counter += count(k, c.indexOf(l), c, height - 1);
         return counter;
     }
 
@@ -137,11 +551,11 @@ class CountConfigurationsNaive {  // counting of stable configurations
     static long count(int n) {
         if (n == 0) return 1;
         if (n == 1) return 2;
-        LinkedList<Row> rows = Row.allStableRows(n);
+        final Compatibility c = Compatibility.of(n);
         long counter = 0;
-        for (Row row1 : rows)
-            for (Row row2 : rows)
-                counter += count(row1, row2, rows, n);
+        for (int j = 0; j < c.size; j++)
+            for (int k = 0; k < c.size; k++)
+                counter += count(j, k, c, n);
         return counter;
     }
 }
@@ -214,24 +628,398 @@ class HashTable { // hash table
 
 }
 
+class LongHashTable { // hash table from long keys to long values, with open addressing
+    static final double LOAD_FACTOR = 0.5; // the table doubles when it is fuller
+    static final long EMPTY = 0; // marks the free slots, it cannot be a key
+
+    private long[] keys;
+    private long[] values; // values[i] is the value of keys[i]
+    private int size;
+
+    LongHashTable() {
+        this(16);
+    }
+
+    // constructor of a table of capacity slots, a power of 2
+    LongHashTable(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+    }
+
+    // first slot of the key
+    private static int slot(long key, int mask) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // return the slot of key, or -1 if it is not in the table
+    int find(long key) {
+        final int mask = keys.length - 1;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            if (keys[i] == key)
+                return i;
+            if (keys[i] == EMPTY)
+                return -1;
+        }
+    }
+
+    // value in the slot returned by find
+    long value(int slot) {
+        return values[slot];
+    }
+
+    // associate value to key, replacing its previous value
+    void put(long key, long value) {
+        if (key == EMPTY)
+            throw new IllegalArgumentException("the key " + EMPTY + " is reserved");
+        if (size + 1 > LOAD_FACTOR * keys.length)
+            resize(2 * keys.length);
+        final int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+        if (keys[i] == EMPTY)
+            size++;
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        final int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY)
+                    i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+}
+
+/* The persistent memo is made of two files of records, a record being a key and its
+ * value as two longs in big-endian order:
+ * 		- memo.log, to which the new records are appended,
+ * 		- memo.index, whose records are sorted by key and which is memory mapped and
+ * 		  searched by dichotomy.
+ * Both files start with a header of the size of a record: the magic number and the
+ * version of the files, then the layout of the keys given by the user of the memo. The
+ * keys only make sense for that layout, so a memo written with another one is refused.
+ * compact() merges the log into a new index and empties the log. A record torn by a
+ * crash at the end of the log is dropped when the memo is opened.
+ */
+class PersistentMemo implements AutoCloseable { // memo of long keys to long values kept in files
+    static final int RECORD = 16; // bytes of a record
+    static final int HEADER = RECORD; // bytes of the header
+    static final long MAGIC = 0x48573220L << 32; // "HW2 " in the high half of the first long of the header
+    static final int VERSION = 1; // in its low half
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path index;
+    private final Path log;
+    private final long layout; // layout of the keys, second long of the header
+    private MappedByteBuffer sorted; // records of the index, null if there is none
+    private int nbSorted;
+    private final LongHashTable recent = new LongHashTable(); // records of the log not in the index
+    private final FileChannel channel; // of the log, positioned at its end
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int length; // number of bytes waiting to be appended to the log
+    long hits; // number of keys found
+
+    // constructor of the memo kept in directory, created if needed, whose keys have the given layout;
+    // throws IOException if the files of directory were written with another version or layout
+    PersistentMemo(Path directory, long layout) throws IOException {
+        Files.createDirectories(directory);
+        index = directory.resolve("memo.index");
+        log = directory.resolve("memo.log");
+        this.layout = layout;
+        mapIndex();
+        channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            readLog();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // checks the header of the log, or writes it if the log is new, and reads its records
+    private void readLog() throws IOException {
+        if (channel.size() < HEADER) { // a new log, or one whose header was torn
+            channel.truncate(0);
+            buffer.putLong(0, MAGIC | VERSION);
+            buffer.putLong(8, layout);
+            length = HEADER;
+            flush();
+        } else
+            checkHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER), log);
+        final long size = HEADER + (channel.size() - HEADER) / RECORD * RECORD;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("the log " + log + " is too large, it must be compacted");
+        channel.truncate(size);
+        final MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        for (int position = HEADER; position < size; position += RECORD) {
+            final long key = records.getLong(position);
+            if (search(key) < 0)
+                recent.put(key, records.getLong(position + 8));
+        }
+        channel.position(size);
+    }
+
+    // throws IOException if the header at the start of records is not the one of this memo
+    private void checkHeader(ByteBuffer records, Path file) throws IOException {
+        final long head = records.getLong(0);
+        if ((head & 0xFFFFFFFF00000000L) != MAGIC)
+            throw new IOException(file + " is not a memo");
+        if ((int) head != VERSION || records.getLong(8) != layout)
+            throw new IOException(file + " was written with the version " + (int) head + " and the layout "
+                    + Long.toHexString(records.getLong(8)) + " instead of " + VERSION + " and "
+                    + Long.toHexString(layout));
+    }
+
+    // maps the index file, if any
+    private void mapIndex() throws IOException {
+        sorted = null;
+        nbSorted = 0;
+        if (!Files.exists(index))
+            return;
+        try (FileChannel ch = FileChannel.open(index, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER || (ch.size() - HEADER) % RECORD != 0 || ch.size() > Integer.MAX_VALUE)
+                throw new IOException("the index " + index + " is corrupted");
+            sorted = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            checkHeader(sorted, index);
+            nbSorted = (int) ((ch.size() - HEADER) / RECORD);
+        }
+    }
+
+    // return the position of the record of key in the index, or -1 if it is not in the index
+    private int search(long key) {
+        int low = 0, high = nbSorted - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long k = sorted.getLong(HEADER + middle * RECORD);
+            if (k < key)
+                low = middle + 1;
+            else if (k > key)
+                high = middle - 1;
+            else
+                return HEADER + middle * RECORD;
+        }
+        return -1;
+    }
+
+    // return the value of key, if it is in the memo
+    OptionalLong find(long key) {
+        final int slot = recent.find(key);
+        if (slot >= 0) {
+            hits++;
+            return OptionalLong.of(recent.value(slot));
+        }
+        final int position = search(key);
+        if (position < 0)
+            return OptionalLong.empty();
+        hits++;
+        return OptionalLong.of(sorted.getLong(position + 8));
+    }
+
+    // appends the record of key, which is not in the memo, and value to the log
+    void put(long key, long value) {
+        recent.put(key, value);
+        if (length + RECORD > BUFFER_SIZE)
+            flush();
+        buffer.putLong(length, key);
+        buffer.putLong(length + 8, value);
+        length += RECORD;
+    }
+
+    // number of keys in the memo
+    int size() {
+        return nbSorted + recent.size();
+    }
+
+    // number of keys in the index
+    int indexSize() {
+        return nbSorted;
+    }
+
+    // writes the records waiting in the buffer to the log
+    void flush() {
+        buffer.position(0).limit(length);
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+        length = 0;
+    }
+
+    // merges the log into the index, which is replaced atomically, then empties the log
+    void compact() throws IOException {
+        flush();
+        final MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        final long[] keys = new long[(records.limit() - HEADER) / RECORD];
+        for (int r = 0; r < keys.length; r++)
+            keys[r] = records.getLong(HEADER + r * RECORD);
+        Arrays.sort(keys);
+        int n = 0; // keys of recent, without the repetitions
+        for (int r = 0; r < keys.length; r++)
+            if ((n == 0 || keys[r] != keys[n - 1]) && recent.find(keys[r]) >= 0)
+                keys[n++] = keys[r];
+        final Path merged = index.resolveSibling("memo.index.tmp");
+        try (FileChannel out = FileChannel.open(merged, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putLong(0, MAGIC | VERSION);
+            buffer.putLong(8, layout);
+            length = HEADER;
+            int i = 0, j = 0;
+            while (i < nbSorted || j < n) {
+                final long key;
+                final long value;
+                if (j == n || i < nbSorted && sorted.getLong(HEADER + i * RECORD) < keys[j]) {
+                    key = sorted.getLong(HEADER + i * RECORD);
+                    value = sorted.getLong(HEADER + i * RECORD + 8);
+                    i++;
+                } else {
+                    key = keys[j++];
+                    value = recent.value(recent.find(key));
+                }
+                if (length + RECORD > BUFFER_SIZE)
+                    write(out);
+                buffer.putLong(length, key);
+                buffer.putLong(length + 8, value);
+                length += RECORD;
+            }
+            write(out);
+            out.force(true);
+        }
+        Files.move(merged, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        mapIndex();
+        channel.truncate(HEADER);
+        channel.position(HEADER);
+        recent.clear();
+    }
+
+    // writes the buffer to out
+    private void write(FileChannel out) throws IOException {
+        buffer.position(0).limit(length);
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+        length = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
+
 class CountConfigurationsHashTable { // counting of stable configurations using our hash table
-    static HashTable memo = new HashTable();
+    static LongHashTable memo = new LongHashTable();
+    static PersistentMemo store; // counts kept from the previous runs, null if none
+
+    // layout of the keys for a PersistentMemo: the version of the order of the rows in Compatibility
+    // and of the choice of the representatives of the orbits in Symmetry, then the numbers of bits
+    // of width, j, k and height; it must change with any of them, as the memos written before
+    // would give wrong counts
+    static final long KEY_LAYOUT = 1L << 32 | 7 << 24 | 18 << 16 | 18 << 8 | 21;
+
+    // return the key of the triplet (rows[j], rows[k], height) of the rows of width,
+    // never 0 as height is at least 1
+    static long key(int width, int j, int k, int height) {
+        if (width >= 1 << 7 || j >= 1 << 18 || k >= 1 << 18 || height >= 1 << 21)
+            throw new IllegalArgumentException("the triplet (" + j + ", " + k + ", " + height + ") of width " + width
+                    + " cannot be packed in a key");
+        return (long) width << 57 | (long) j << 39 | (long) k << 21 | height;
+    }
 
     // Question 4
 
     // return the number of grids whose first lines are r1 and r2,
     // whose lines are lines of rows and whose height is height
-    // using our hash table
+    // using our hash table; when rows are all the stable rows of the width of r1,
+    // their indices are used, otherwise rows is scanned with a table of its own
     static long count(Row r1, Row r2, LinkedList<Row> rows, int height) {
+        final Compatibility c = Compatibility.forRows(r1, r2, rows);
+        if (c != null) return count(c.indexOf(r1), c.indexOf(r2), Symmetry.of(c.width), height);
+        final Row[] lines = new Row[rows.size() + 2]; // r1, r2 and the rows, keyed by their indices
+        lines[0] = r1;
+        lines[1] = r2;
+        int i = 2;
+        for (Row row : rows)
+            lines[i++] = row;
+        if (lines.length >= 1 << 21 || height >= 1 << 21)
+            throw new IllegalArgumentException("the " + rows.size() + " rows and the height " + height
+                    + " cannot be packed in a key");
+        return scan(0, 1, lines, height, new LongHashTable());
+    }
+
+    // same with the first lines lines[a] and lines[b], scanning lines from index 2 for the rows
+    // stackable on them, the results being memoized in table under the key a, b, height
+    private static long scan(int a, int b, Row[] lines, int height, LongHashTable table) {
         if (height <= 1) return 0;
         if (height == 2) return 1;
-        Long result = memo.find(r1, r2, height);
-        if (result != null) return result;
+        final long key = (long) a << 42 | (long) b << 21 | height;
+        final int slot = table.find(key);
+        if (slot >= 0) return table.value(slot);
         long counter = 0;
-        for (Row row : rows)
-            if (row.areStackable(r1, r2))
-                counter += count(r2, row, rows, height - 1);
-        memo.add(r1, r2, height, counter);
+        for (int l = 2; l < lines.length; l++)
+            if (lines[l].areStackable(lines[a], lines[b]))
+                counter += scan(b, l, lines, height - 1, table);
+        table.put(key, counter);
+        return counter;
+    }
+
+    // same with the first lines s.c.rows[j] and s.c.rows[k], the results being memoized
+    // for the representatives of the orbits of the pairs only
+    static long count(int j, int k, Symmetry s, int height) {
+        if (height <= 1) return 0;
+        if (height == 2) return 1;
+        final Compatibility c = s.c;
+        final int pair = s.canonical(j, k);
+        j = pair / c.size;
+        k = pair % c.size;
+        final long key = key(c.width, j, k, height);
+        final int slot = memo.find(key);
+        if (slot >= 0) return memo.value(slot);
+        if (store != null) {
+            final OptionalLong stored = store.find(key);
+            if (stored.isPresent()) {
+                memo.put(key, stored.getAsLong());
+                return stored.getAsLong();
+            }
+        }
+        long counter = 0;
+        if (c.start != null)
+            for (int i = c.start[pair]; i < c.start[pair + 1]; i++)
+                counter += count(k, c.next[i], s, height - 1);
+        else
+            for (long l = c.nextSuccessor(j, k, -1); l >= 0; l = c.nextSuccessor(j, k, l))
+                counter += count(k, c.indexOf(l), s, height - 1);
+        memo.put(key, counter);
+        if (store != null) store.put(key, counter);
         return counter;
     }
 
@@ -239,11 +1027,13 @@ class CountConfigurationsHashTable { // counting of stable configurations using
     static long count(int n) {
         if (n == 0) return 1;
         if (n == 1) return 2;
-        LinkedList<Row> rows = Row.allStableRows(n);
+        final Compatibility c = Compatibility.of(n);
+        final Symmetry s = Symmetry.of(n);
         long counter = 0;
-        for (Row row1 : rows)
-            for (Row row2 : rows)
-                counter += count(row1, row2, rows, n);
+        for (int o = 0; o < s.pairRepresentatives.length; o++) {
+            final int pair = s.pairRepresentatives[o];
+            counter += s.pairMultiplicity[o] * count(pair / c.size, pair % c.size, s, n);
+        }
         return counter;
     }
 }
@@ -284,17 +1074,48 @@ class CountConfigurationsHashMap { // counting of stable configurations using th
 
     // returning the number of grids whose first lines are r1 and r2,
     // whose lines are lines of rows and whose height is height
-    // using the HashMap of java
+    // using the HashMap of java; when rows are all the stable rows of the width of r1,
+    // their indices are used, otherwise rows is scanned with a HashMap of its own
     static long count(Row r1, Row r2, LinkedList<Row> rows, int height) {
+        final Compatibility c = Compatibility.forRows(r1, r2, rows);
+        if (c != null) return count(c.indexOf(r1), c.indexOf(r2), Symmetry.of(c.width), height);
+        return scan(r1, r2, rows, height, new HashMap<>());
+    }
+
+    // same scanning rows for the rows stackable on r1 and r2, the results being memoized in map
+    private static long scan(Row r1, Row r2, LinkedList<Row> rows, int height, HashMap<Triple, Long> map) {
         if (height <= 1) return 0;
         if (height == 2) return 1;
         Triple triple = new Triple(r1, r2, height);
-        Long result = memo.get(triple);
+        Long result = map.get(triple);
         if (result != null) return result;
         long counter = 0;
         for (Row row : rows)
             if (row.areStackable(r1, r2))
-                counter += count(r2, row, rows, height - 1);
+                counter += scan(r2, row, rows, height - 1, map);
+        map.put(triple, counter);
+        return counter;
+    }
+
+    // same with the first lines s.c.rows[j] and s.c.rows[k], the results being memoized
+    // for the representatives of the orbits of the pairs only
+    static long count(int j, int k, Symmetry s, int height) {
+        if (height <= 1) return 0;
+        if (height == 2) return 1;
+        final Compatibility c = s.c;
+        final int pair = s.canonical(j, k);
+        j = pair / c.size;
+        k = pair % c.size;
+        Triple triple = new Triple(c.rows[j], c.rows[k], height);
+        Long result = memo.get(triple);
+        if (result != null) return result;
+        long counter = 0;
+        if (c.start != null)
+            for (int i = c.start[pair]; i < c.start[pair + 1]; i++)
+                counter += count(k, c.next[i], s, height - 1);
+        else
+            for (long l = c.nextSuccessor(j, k, -1); l >= 0; l = c.nextSuccessor(j, k, l))
+                counter += count(k, c.indexOf(l), s, height - 1);
         memo.put(triple, counter);
         return counter;
     }
@@ -304,11 +1125,13 @@ class CountConfigurationsHashMap { // counting of stable configurations using th
         if (n == 0) return 1;
         if (n == 1) return 2;
         memo.clear();
-        LinkedList<Row> rows = Row.allStableRows(n);
+        final Compatibility c = Compatibility.of(n);
+        final Symmetry s = Symmetry.of(n);
         long counter = 0;
-        for (Row row1 : rows)
-            for (Row row2 : rows)
-                counter += count(row1, row2, rows, n);
+        for (int o = 0; o < s.pairRepresentatives.length; o++) {
+            final int pair = s.pairRepresentatives[o];
+            counter += s.pairMultiplicity[o] * count(pair / c.size, pair % c.size, s, n);
+        }
         return counter;
     }
 }
@@ -318,27 +1141,494 @@ class CountConfigurationsDynamicProgramming {
 
     // return the number of grids with n lines and n columns
     static long count(int n) {
-        if (n == 0) return 1;
-        if (n == 1) return 2;
-        final Row[] rows = Row.allStableRows(n).toArray(new Row[0]);
-        final int size = rows.length;
-        long[][][] memo = new long[n + 1][size][size]; // cache optimization
-        // init tables
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                memo[2][i][j] = 1;
-        // iterate the array
-        for (int i = 3; i <= n; i++)
-            for (int j = 0; j < size; j++)
-                for (int k = 0; k < size; k++)
-                    for (int l = 0; l < size; l++)
-                        if (rows[j].areStackable(rows[k], rows[l]))
-                            memo[i][j][k] += memo[i - 1][k][l];
-        // calculate answer
+        return count(n, n);
+    }
+
+    // return the number of grids with height lines and width columns, keeping
+    // only the layers of two consecutive heights, so that the memory does not depend on height
+    static long count(int width, int height) {
+        return count(width, height, 0);
+    }
+
+    // same modulo modulus, where 0 stands for 2^64 and otherwise 0 < modulus < 2^62;
+    // only additions are needed, so the values stay below 2^63 without any division;
+    // the number of grids only depends on the orbit of their first two lines under the
+    // symmetries of the grids, so one value per orbit is kept instead of one per pair
+    static long count(int width, int height, long modulus) {
+        if (modulus < 0 || modulus >= 1L << 62)
+            throw new IllegalArgumentException("the modulus must be 0 or between 1 and 2^62, not " + modulus);
+        if (height == 0) return modulus == 1 ? 0 : 1;
+        if (height == 1) {
+            final int size = Compatibility.of(width).size;
+            return modulus == 0 ? size : size % modulus;
+        }
+        final Symmetry s = Symmetry.of(width);
+        final int nbOrbits = s.pairRepresentatives.length;
+        // layer[o] is the number of grids of the current height whose first lines are any pair of the orbit o
+        long[] layer = new long[nbOrbits];
+        long[] next = new long[nbOrbits];
+        Arrays.fill(layer, modulus == 1 ? 0 : 1);
+        for (int i = 3; i <= height; i++) {
+            step(s, layer, next, 0, nbOrbits, modulus);
+            final long[] t = layer;
+            layer = next;
+            next = t;
+        }
+        // an orbit holds at most 4 pairs, so the product of its multiplicity by a value
+        // below 2^62 is below 2^64 and reduced as an unsigned number
         long counter = 0;
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                counter += memo[n][i][j];
+        for (int o = 0; o < nbOrbits; o++) {
+            final long product = s.pairMultiplicity[o] * layer[o];
+            counter += modulus == 0 ? product : Long.remainderUnsigned(product, modulus);
+            if (modulus != 0 && counter >= modulus)
+                counter -= modulus;
+        }
+        return counter;
+    }
+
+    // computes the orbits o0 <= o < o1 of the layer next, one line higher than layer, modulo modulus
+    static void step(Symmetry s, long[] layer, long[] next, int o0, int o1, long modulus) {
+        final Compatibility c = s.c;
+        final int size = c.size;
+        for (int o = o0; o < o1; o++) {
+            final int pair = s.pairRepresentatives[o];
+            final int j = pair / size;
+            final int k = pair % size;
+            long sum = 0;
+            if (c.start != null)
+                for (int i = c.start[pair]; i < c.start[pair + 1]; i++) {
+                    sum += layer[s.pairOrbit[k * size + c.next[i]]];
+                    if (modulus != 0 && sum >= modulus)
+                        sum -= modulus;
+                }
+            else
+                for (long l = c.nextSuccessor(j, k, -1); l >= 0; l = c.nextSuccessor(j, k, l)) {
+                    sum += layer[s.pairOrbit[k * size + c.indexOf(l)]];
+                    if (modulus != 0 && sum >= modulus)
+                        sum -= modulus;
+                }
+            next[o] = sum;
+        }
+    }
+
+    // return the exact number of grids with height lines and width columns, from its
+    // residues modulo as many primes of 61 bits as needed, combined by the Chinese
+    // remainder theorem; there are at most size^height grids
+    static BigInteger exactCount(int width, int height) {
+        final double bits = height * Math.log(Math.max(1, Compatibility.of(width).size)) / Math.log(2) + 1;
+        final long[] primes = Primes.below61(1 + (int) (bits / 60));
+        BigInteger product = BigInteger.ONE;
+        BigInteger result = BigInteger.ZERO;
+        for (long p : primes) {
+            // result is the count modulo product, lift it modulo product * p
+            final BigInteger prime = BigInteger.valueOf(p);
+            final BigInteger residue = BigInteger.valueOf(count(width, height, p));
+            final BigInteger t = residue.subtract(result).multiply(product.modInverse(prime)).mod(prime);
+            result = result.add(product.multiply(t));
+            product = product.multiply(prime);
+        }
+        return result;
+    }
+
+    // return the exact number of grids with n lines and n columns
+    static BigInteger exactCount(int n) {
+        return exactCount(n, n);
+    }
+
+    // same with each layer of orbits computed in parallel on pool, the result does not depend on the pool
+    static long count(int width, int height, ForkJoinPool pool) {
+        if (height == 0) return 1;
+        if (height == 1) return Compatibility.of(width).size;
+        final Symmetry s = Symmetry.of(width);
+        final int nbOrbits = s.pairRepresentatives.length;
+        long[] layer = new long[nbOrbits];
+        long[] next = new long[nbOrbits];
+        Arrays.fill(layer, 1);
+        for (int i = 3; i <= height; i++) {
+            pool.invoke(new LayerTask(s, layer, next, 0, nbOrbits));
+            final long[] t = layer;
+            layer = next;
+            next = t;
+        }
+        long counter = 0;
+        for (int o = 0; o < nbOrbits; o++)
+            counter += s.pairMultiplicity[o] * layer[o];
         return counter;
     }
-}
\ No newline at end of file
+
+    // return the peak number of bytes of arrays used by count(width, height) for any
+    // height: the two layers, the compatibility and the orbits of the pairs of the width,
+    // that is O(size^2) above Compatibility.MAX_LISTED_WIDTH, where the successors are not stored
+    static long footprint(int width) {
+        final Symmetry s = Symmetry.of(width);
+        final int nbOrbits = s.pairRepresentatives.length;
+        return 2L * Long.BYTES * nbOrbits + s.c.footprint() + (long) Integer.BYTES * (s.pairOrbit.length + 2 * nbOrbits);
+    }
+}
+
+class LayerTask extends RecursiveAction { // computes the orbits o0 <= o < o1 of the next layer
+    private static final long serialVersionUID = 1L;
+
+    static final int GRAIN = 256; // number of orbits computed by a task without splitting
+
+    private final Symmetry s;
+    private final long[] layer;
+    private final long[] next;
+    private final int o0;
+    private final int o1;
+
+    LayerTask(Symmetry s, long[] layer, long[] next, int o0, int o1) {
+        this.s = s;
+        this.layer = layer;
+        this.next = next;
+        this.o0 = o0;
+        this.o1 = o1;
+    }
+
+    @Override
+    protected void compute() {
+        if (o1 - o0 > GRAIN) {
+            final int middle = (o0 + o1) >>> 1;
+            invokeAll(new LayerTask(s, layer, next, o0, middle), new LayerTask(s, layer, next, middle, o1));
+            return;
+        }
+        CountConfigurationsDynamicProgramming.step(s, layer, next, o0, o1, 0);
+    }
+}
+
+// counting with the transfer matrix between consecutive pairs of rows
+class CountConfigurationsTransferMatrix {
+
+    // return the number of grids with height lines and width columns, modulo 2^64 like the other counters
+    static long count(int width, int height) {
+        return count(width, height, 0);
+    }
+
+    // same modulo modulus, where 0 stands for 2^64 and otherwise 0 < modulus < 2^62;
+    // the grids are the walks of height - 2 steps in the graph whose vertices are the
+    // pairs of stable rows (j, k) and whose edges go from (j, k) to (k, l) if l can be
+    // stacked on them, so they are counted with O(log height) products of matrices of
+    // size^2 x size^2 values, which limits this counter to small widths
+    static long count(int width, long height, long modulus) {
+        if (modulus < 0 || modulus >= 1L << 62)
+            throw new IllegalArgumentException("the modulus must be 0 or between 1 and 2^62, not " + modulus);
+        if (height == 0) return reduce(0, 1, modulus);
+        final Compatibility c = Compatibility.of(width);
+        if (height == 1) return reduce(0, c.size, modulus);
+        final int n = c.size * c.size;
+        long[] power = new long[n * n]; // power[u * n + v] is the number of walks from u to v
+        for (int j = 0; j < c.size; j++)
+            for (int k = 0; k < c.size; k++)
+                for (int p = c.start[j * c.size + k]; p < c.start[j * c.size + k + 1]; p++)
+                    power[(j * c.size + k) * n + k * c.size + c.next[p]] = 1;
+        long[] walks = new long[n]; // walks[u] is the number of walks of the length done from u
+        Arrays.fill(walks, reduce(0, 1, modulus));
+        for (long e = height - 2; e > 0; e >>= 1) {
+            if ((e & 1) != 0)
+                walks = product(power, walks, n, 1, modulus);
+            if (e > 1)
+                power = product(power, power, n, n, modulus);
+        }
+        long counter = 0;
+        for (long w : walks)
+            counter = modulus == 0 ? counter + w : (counter + w) % modulus;
+        return counter;
+    }
+
+    // product of the n x n matrix a by the n x m matrix b, modulo modulus; the sums of
+    // products are accumulated on 128 bits and reduced once per entry
+    static long[] product(long[] a, long[] b, int n, int m, long modulus) {
+        final long[] result = new long[n * m];
+        final long[] high = new long[m];
+        final long[] low = new long[m];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(high, 0);
+            Arrays.fill(low, 0);
+            for (int k = 0; k < n; k++) {
+                final long x = a[i * n + k];
+                if (x == 0)
+                    continue;
+                for (int j = 0; j < m; j++) {
+                    final long y = b[k * m + j];
+                    final long l = x * y;
+                    low[j] += l;
+                    high[j] += Math.multiplyHigh(x, y) + (Long.compareUnsigned(low[j], l) < 0 ? 1 : 0);
+                    if (high[j] >= 1L << 62 && modulus != 0) // each product adds less than 2^60 + 1
+                        high[j] %= modulus;
+                }
+            }
+            for (int j = 0; j < m; j++)
+                result[i * m + j] = reduce(high[j], low[j], modulus);
+        }
+        return result;
+    }
+
+    // returns high * 2^64 + low modulo modulus, where 0 stands for 2^64
+    static long reduce(long high, long low, long modulus) {
+        if (modulus == 0)
+            return low;
+        long r = Long.remainderUnsigned(high, modulus);
+        for (int s = 62; s >= 0; s -= 2) // r < 2^62, so that 4 * r + 3 < 2^64
+            r = Long.remainderUnsigned(r << 2 | (low >>> s & 3), modulus);
+        return r;
+    }
+}
+
+class Primes { // primes of 61 bits, from the largest one
+    private static final ArrayList<Long> primes = new ArrayList<>();
+
+    // return the k largest primes below 2^61
+    static synchronized long[] below61(int k) {
+        long candidate = primes.isEmpty() ? 1L << 61 : primes.get(primes.size() - 1);
+        while (primes.size() < k) {
+            candidate--;
+            if (BigInteger.valueOf(candidate).isProbablePrime(64))
+                primes.add(candidate);
+        }
+        final long[] result = new long[k];
+        for (int i = 0; i < k; i++)
+            result[i] = primes.get(i);
+        return result;
+    }
+}
+
+// counting cell by cell with a broken profile
+class CountConfigurationsBrokenProfile {
+
+    // return the number of grids with height lines and width columns, modulo 2^64 like the other counters
+    static long count(int width, int height) {
+        return count(width, height, 0);
+    }
+
+    // same modulo modulus, where 0 stands for 2^64 and otherwise 0 < modulus < 2^62.
+    // The grid is filled line by line and cell by cell. The profile is the last two fruits
+    // of each column, on 2 bits per column: the last fruit on the low bit and the previous
+    // one on the high bit. It is rotated so that the column of the next cell is always on
+    // the 2 lowest bits, and the two columns on its left on the 4 highest bits. The reachable
+    // profiles are kept sorted in keys, with their numbers of grids in values. Placing a cell
+    // sends the profiles that only differ by its column to the same new profile, whose
+    // column goes to the highest bits; so the new profiles are sorted by a stable partition
+    // of the old ones into 4 buckets, in linear time without hashing.
+    static long count(int width, int height, long modulus) {
+        if (modulus < 0 || modulus >= 1L << 62)
+            throw new IllegalArgumentException("the modulus must be 0 or between 1 and 2^62, not " + modulus);
+        if (width > 31)
+            throw new IllegalArgumentException("the profile of " + width + " columns does not fit in a long");
+        if (width == 0 || height == 0) return modulus == 1 ? 0 : 1;
+        final int top = 2 * width - 2; // position of the column placed last
+        long[] keys = new long[16];
+        long[] values = new long[16];
+        long[] nextKeys = new long[16];
+        long[] nextValues = new long[16];
+        int n = 1;
+        values[0] = modulus == 1 ? 0 : 1;
+        final int[] offsets = new int[4];
+        for (int line = 0; line < height; line++)
+            for (int col = 0; col < width; col++) {
+                // first pass: number of new profiles in each bucket
+                Arrays.fill(offsets, 0);
+                for (int g = 0, h; g < n; g = h) {
+                    h = group(keys, g, n);
+                    for (int code = 0; code < 4; code++)
+                        if (reached(keys, g, h, code, line, col, top))
+                            offsets[code]++;
+                }
+                int total = 0;
+                for (int code = 0; code < 4; code++) {
+                    final int count = offsets[code];
+                    offsets[code] = total;
+                    total += count;
+                }
+                if (nextKeys.length < total) {
+                    nextKeys = new long[2 * total];
+                    nextValues = new long[2 * total];
+                }
+                // second pass: sums of the numbers of grids of the profiles of each group
+                for (int g = 0, h; g < n; g = h) {
+                    h = group(keys, g, n);
+                    for (int code = 0; code < 4; code++) {
+                        if (!reached(keys, g, h, code, line, col, top))
+                            continue;
+                        final int fruit = code & 1;
+                        final int a = code >>> 1; // last fruit of the column before the cell
+                        long sum = 0;
+                        for (int i = g; i < h; i++) {
+                            final int b = (int) (keys[i] >>> 1 & 1); // fruit before it
+                            if ((keys[i] & 1) != a || line >= 2 && a == fruit && b == fruit)
+                                continue;
+                            sum += values[i];
+                            if (modulus != 0 && sum >= modulus)
+                                sum -= modulus;
+                        }
+                        final int i = offsets[code]++;
+                        nextKeys[i] = keys[g] >>> 2 | (long) code << top;
+                        nextValues[i] = sum;
+                    }
+                }
+                n = total;
+                long[] t = keys;
+                keys = nextKeys;
+                nextKeys = t;
+                t = values;
+                values = nextValues;
+                nextValues = t;
+            }
+        long counter = 0;
+        for (int i = 0; i < n; i++) {
+            counter += values[i];
+            if (modulus != 0 && counter >= modulus)
+                counter -= modulus;
+        }
+        return counter;
+    }
+
+    // end of the group of the profiles from g that only differ by the column of the next cell
+    private static int group(long[] keys, int g, int n) {
+        int h = g + 1;
+        while (h < n && keys[h] >>> 2 == keys[g] >>> 2)
+            h++;
+        return h;
+    }
+
+    // test if the profile whose column of the next cell is code, the new fruit on bit 0 and the
+    // last fruit of the column on bit 1, is reached from the group of profiles keys[g..h)
+    private static boolean reached(long[] keys, int g, int h, int code, int line, int col, int top) {
+        final int fruit = code & 1;
+        final int a = code >>> 1;
+        // three equal fruits in the line
+        if (col >= 2 && (keys[g] >>> top & 1) == fruit && (keys[g] >>> (top - 2) & 1) == fruit)
+            return false;
+        // three equal fruits in the column
+        for (int i = g; i < h; i++)
+            if ((keys[i] & 1) == a && !(line >= 2 && a == fruit && (keys[i] >>> 1 & 1) == fruit))
+                return true;
+        return false;
+    }
+}
+
+// parallel counting with a shared memo
+class CountConfigurationsParallel {
+    static final int SEQUENTIAL_HEIGHT = 2; // height under which the grids are counted without the memo
+    private static final int DONE = 1;
+
+    // the count of the triplet (pair orbit o, height) is values[(height - 3) * nbOrbits + o], read
+    // without any lock or boxing once the slot is DONE; while it is computed, the slot has a future
+    // in inFlight, put by the first worker needing it, which the others wait for, so that no
+    // triplet is ever computed twice
+    private long[] values = new long[0];
+    private AtomicIntegerArray done = new AtomicIntegerArray(0);
+    private final ConcurrentHashMap<Integer, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+    final LongAdder computed = new LongAdder(); // number of triplets computed
+    final Compatibility c;
+    final Symmetry symmetry;
+    private final int nbOrbits;
+
+    CountConfigurationsParallel(int width) {
+        c = Compatibility.of(width);
+        symmetry = Symmetry.of(width);
+        nbOrbits = symmetry.pairRepresentatives.length;
+    }
+
+    // return the number of grids with n lines and n columns, computed on pool
+    static long count(int n, ForkJoinPool pool) {
+        if (n == 0) return 1;
+        if (n == 1) return 2;
+        return new CountConfigurationsParallel(n).countGrids(n, pool);
+    }
+
+    // return the number of grids of height lines with the width of this counter, at least 2, computed on pool
+    // by one task per orbit of the pairs of first lines; the counts of the lower heights are kept for
+    // the next call, which must not run at the same time
+    long countGrids(int height, ForkJoinPool pool) {
+        final int length = Math.multiplyExact(Math.max(0, height - SEQUENTIAL_HEIGHT), nbOrbits);
+        if (length > values.length) {
+            final long[] v = Arrays.copyOf(values, length);
+            final AtomicIntegerArray d = new AtomicIntegerArray(length);
+            for (int slot = 0; slot < values.length; slot++)
+                d.set(slot, done.get(slot));
+            values = v;
+            done = d;
+        }
+        return pool.invoke(new PairTask(this, 0, nbOrbits, height));
+    }
+
+    // number of triplets whose count is known
+    int size() {
+        int n = 0;
+        for (int slot = 0; slot < done.length(); slot++)
+            if (done.get(slot) == DONE)
+                n++;
+        return n;
+    }
+
+    // return the number of grids whose first lines are rows[j] and rows[k] and whose height is height;
+    // a worker waits only for triplets lower than all the ones it computes, so it cannot wait for itself
+    long count(int j, int k, int height) {
+        if (height <= SEQUENTIAL_HEIGHT)
+            return CountConfigurationsNaive.count(j, k, c, height);
+        final int orbit = symmetry.pairOrbit[j * c.size + k];
+        final int slot = (height - SEQUENTIAL_HEIGHT - 1) * nbOrbits + orbit;
+        if (done.get(slot) == DONE)
+            return values[slot];
+        final CompletableFuture<Long> created = new CompletableFuture<>();
+        final CompletableFuture<Long> previous = inFlight.putIfAbsent(slot, created);
+        if (previous != null)
+            return previous.join();
+        if (done.get(slot) == DONE) { // computed and removed from inFlight since the first read
+            created.complete(values[slot]);
+            inFlight.remove(slot);
+            return values[slot];
+        }
+        computed.increment();
+        try {
+            long counter = 0;
+            final int pair = symmetry.pairRepresentatives[orbit];
+            final int first = pair / c.size;
+            final int second = pair % c.size;
+            if (c.start != null)
+                for (int i = c.start[pair]; i < c.start[pair + 1]; i++)
+                    counter += count(second, c.next[i], height - 1);
+            else
+                for (long l = c.nextSuccessor(first, second, -1); l >= 0; l = c.nextSuccessor(first, second, l))
+                    counter += count(second, c.indexOf(l), height - 1);
+            values[slot] = counter;
+            done.set(slot, DONE); // publishes values[slot] to the workers reading done
+            created.complete(counter);
+            return counter;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(slot);
+        }
+    }
+}
+
+class PairTask extends RecursiveTask<Long> { // number of grids whose first lines are in the orbits o0 <= o < o1
+    private static final long serialVersionUID = 1L;
+
+    private final CountConfigurationsParallel counter;
+    private final int o0, o1;
+    private final int height;
+
+    PairTask(CountConfigurationsParallel counter, int o0, int o1, int height) {
+        this.counter = counter;
+        this.o0 = o0;
+        this.o1 = o1;
+        this.height = height;
+    }
+
+    @Override
+    protected Long compute() {
+        if (o1 - o0 == 1) {
+            final Symmetry s = counter.symmetry;
+            final int pair = s.pairRepresentatives[o0];
+            return s.pairMultiplicity[o0] * counter.count(pair / counter.c.size, pair % counter.c.size, height);
+        }
+        final int middle = (o0 + o1) >>> 1;
+        final PairTask right = new PairTask(counter, middle, o1, height);
+        right.fork();
+        final long left = new PairTask(counter, o0, middle, height).compute();
+        return left + right.join();
+    }
+}
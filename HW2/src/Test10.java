@@ -0,0 +1,71 @@
+import java.math.BigInteger;
+
+public class Test10 {
+
+	// exact number of grids of height lines and width columns, computed layer by layer
+	static BigInteger exact(int width, int height) {
+		if (height == 0)
+			return BigInteger.ONE;
+		Compatibility c = Compatibility.of(width);
+		if (height == 1)
+			return BigInteger.valueOf(c.size);
+		BigInteger[] layer = new BigInteger[c.size * c.size];
+		java.util.Arrays.fill(layer, BigInteger.ONE);
+		for (int i = 3; i <= height; i++) {
+			BigInteger[] next = new BigInteger[layer.length];
+			for (int u = 0; u < layer.length; u++) {
+				next[u] = BigInteger.ZERO;
+				for (long l = c.nextSuccessor(u / c.size, u % c.size, -1); l >= 0; l = c.nextSuccessor(u / c.size,
+						u % c.size, l))
+					next[u] = next[u].add(layer[u % c.size * c.size + c.indexOf(l)]);
+			}
+			layer = next;
+		}
+		BigInteger counter = BigInteger.ZERO;
+		for (BigInteger x : layer)
+			counter = counter.add(x);
+		return counter;
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test10.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// the transfer matrix gives the same counts as the dynamic programming
+		System.out.print("Test of the method count of CountConfigurationsTransferMatrix ... ");
+		for (int width = 0; width <= 4; width++)
+			for (int height = 0; height <= 40; height++) {
+				long res = CountConfigurationsTransferMatrix.count(width, height);
+				long expected = CountConfigurationsDynamicProgramming.count(width, height);
+				assert (res == expected) : "\nThere are " + expected + " stable configurations of " + height
+						+ " lines and " + width + " columns modulo 2^64, not " + res + ".";
+			}
+		System.out.println("[OK]");
+
+		// modular counts
+		System.out.print("Test of the modular counts of CountConfigurationsTransferMatrix ... ");
+		long[] moduli = { 2, 1_000_000_007L, (1L << 61) - 1, (1L << 62) - 57 };
+		for (long modulus : moduli)
+			for (int width = 0; width <= 4; width++)
+				for (int height = 0; height <= 30; height += 3) {
+					long res = CountConfigurationsTransferMatrix.count(width, height, modulus);
+					long expected = exact(width, height).mod(BigInteger.valueOf(modulus)).longValue();
+					assert (res == expected) : "\nThere are " + expected + " stable configurations of " + height
+							+ " lines and " + width + " columns modulo " + modulus + ", not " + res + ".";
+				}
+		System.out.println("[OK]");
+
+		// very tall grids
+		for (int width = 3; width <= 4; width++) {
+			long startTime = System.nanoTime();
+			long res = CountConfigurationsTransferMatrix.count(width, 1_000_000_000_000L, (1L << 61) - 1);
+			long endTime = System.nanoTime();
+			System.out.println("    " + width + " columns and 10^12 lines: " + res + " modulo 2^61 - 1 (time of calculating : "
+					+ String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms)");
+		}
+	}
+}
@@ -0,0 +1,47 @@
+import java.math.BigInteger;
+
+public class Test11 {
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test11.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// the modular counts agree with those of the transfer matrix
+		System.out.print("Test of the modular counts of CountConfigurationsDynamicProgramming ... ");
+		long[] moduli = { 1, 2, 1_000_000_007L, (1L << 61) - 1, (1L << 62) - 57 };
+		for (long modulus : moduli)
+			for (int width = 0; width <= 4; width++)
+				for (int height = 0; height <= 30; height += 3) {
+					long res = CountConfigurationsDynamicProgramming.count(width, height, modulus);
+					long expected = CountConfigurationsTransferMatrix.count(width, height, modulus == 1 ? 2 : modulus)
+							% modulus;
+					assert (res == expected) : "\nThere are " + expected + " stable configurations of " + height
+							+ " lines and " + width + " columns modulo " + modulus + ", not " + res + ".";
+				}
+		System.out.println("[OK]");
+
+		// the exact counts agree with the known ones, and with the counts modulo 2^64 beyond
+		System.out.println("Test of the method exactCount of CountConfigurationsDynamicProgramming ... ");
+		long[] nums = new long[] { 1L, 2L, 16L, 102L, 2030L, 60232L, 3858082L, 446672706L, 101578277384L,
+				43680343039806L, 36133311325799774L };
+		for (int n = 0; n <= 12; n++) {
+			long startTime = System.nanoTime();
+			BigInteger res = CountConfigurationsDynamicProgramming.exactCount(n);
+			long endTime = System.nanoTime();
+			System.out.println("    Compute the number of grids of size " + n + "x" + n + " ... " + res
+					+ " (time of calculating : " + String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms)");
+			assert (n >= nums.length || res.equals(BigInteger.valueOf(nums[n]))) : "\nThere are " + nums[n]
+					+ " stable configurations of size " + n + "x" + n + ".";
+			assert (res.longValue() == CountConfigurationsDynamicProgramming.count(n)) : "\nThe exact count " + res
+					+ " is not the count modulo 2^64.";
+		}
+		BigInteger tall = CountConfigurationsDynamicProgramming.exactCount(3, 300);
+		assert (tall.mod(BigInteger.valueOf((1L << 61) - 1)).longValue() == CountConfigurationsTransferMatrix.count(3,
+				300, (1L << 61) - 1)) : "\nThe exact count of 3 columns and 300 lines is wrong.";
+		System.out.println("[OK]");
+	}
+}
@@ -0,0 +1,53 @@
+import java.util.HashMap;
+import java.util.Random;
+
+public class Test12 {
+
+	// test the table against a HashMap on random keys, many of them repeated
+	static void testLongHashTable(long seed) {
+		Random random = new Random(seed);
+		LongHashTable t = new LongHashTable();
+		HashMap<Long, Long> expected = new HashMap<>();
+		for (int i = 0; i < 20000; i++) {
+			long key = 1 + random.nextInt(30000) * (random.nextBoolean() ? 1L : 1L << 40);
+			if (random.nextBoolean()) {
+				long value = random.nextLong();
+				t.put(key, value);
+				expected.put(key, value);
+			}
+			int slot = t.find(key);
+			assert ((slot >= 0) == expected.containsKey(key)) : "\nThe key " + key
+					+ (expected.containsKey(key) ? " should" : " should not") + " be in the table.";
+			assert (slot < 0 || t.value(slot) == expected.get(key)) : "\nThe value of the key " + key + " should be "
+					+ expected.get(key) + ", not " + t.value(slot) + ".";
+		}
+		assert (t.size() == expected.size()) : "\nThe table holds " + t.size() + " keys instead of " + expected.size()
+				+ ".";
+		assert (t.size() <= LongHashTable.LOAD_FACTOR * t.capacity()) : "\nThe table is too full.";
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test12.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// test of the class LongHashTable
+		System.out.print("Test of the class LongHashTable ... ");
+		for (long seed = 0; seed < 20; seed++)
+			testLongHashTable(seed);
+		System.out.println("[OK]");
+
+		// the memo of the count holds one entry per triplet
+		System.out.print("Test of the memo of CountConfigurationsHashTable ... ");
+		CountConfigurationsHashTable.memo.clear();
+		long res = CountConfigurationsHashTable.count(8);
+		assert (res == 101578277384L) : "\nThere are 101578277384 stable configurations of size 8x8.";
+		int size = CountConfigurationsHashTable.memo.size();
+		assert (CountConfigurationsHashTable.count(8) == res && CountConfigurationsHashTable.memo.size() == size)
+				: "\nThe second count of size 8x8 should only read the memo.";
+		System.out.println("[OK] (" + size + " entries)");
+	}
+}
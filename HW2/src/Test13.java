@@ -0,0 +1,66 @@
+public class Test13 {
+
+	// test the orbits of the rows and of the pairs of rows of width
+	static void testSymmetry(int width) {
+		Symmetry s = Symmetry.of(width);
+		Compatibility c = s.c;
+		int rows = 0;
+		for (int o = 0; o < s.rowRepresentatives.length; o++)
+			rows += s.rowMultiplicity[o];
+		int pairs = 0;
+		for (int o = 0; o < s.pairRepresentatives.length; o++)
+			pairs += s.pairMultiplicity[o];
+		assert (rows == c.size && pairs == c.size * c.size) : "\nThe orbits of width " + width + " hold " + rows
+				+ " rows and " + pairs + " pairs.";
+		for (int j = 0; j < c.size; j++) {
+			Row r = c.rows[j];
+			assert (c.rows[s.complement[j]].toString().equals(r.toString().replace('0', '2').replace('1', '0')
+					.replace('2', '1'))) : "\nThe complement of " + r + " is not " + c.rows[s.complement[j]] + ".";
+			assert (c.rows[s.mirror[j]].toString().equals(new StringBuilder(r.toString()).reverse().toString()))
+					: "\nThe mirror of " + r + " is not " + c.rows[s.mirror[j]] + ".";
+			assert (s.rowOrbit[j] == s.rowOrbit[s.complement[j]] && s.rowOrbit[j] == s.rowOrbit[s.mirror[j]])
+					: "\nThe row " + r + " is not in the orbit of its complement and its mirror.";
+			for (int k = 0; k < c.size; k++) {
+				int u = s.canonical(j, k);
+				assert (u == s.canonical(s.complement[j], s.complement[k]) && u == s.canonical(s.mirror[j], s.mirror[k])
+						&& u <= j * c.size + k) : "\nThe pair " + c.rows[j] + ", " + c.rows[k]
+								+ " has a wrong representative.";
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test13.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// test of the class Symmetry
+		System.out.print("Test of the class Symmetry ... ");
+		for (int width = 0; width <= 8; width++)
+			testSymmetry(width);
+		int[] fruits = new int[70];
+		for (int i = 0; i < 70; i++)
+			fruits[i] = i % 5 % 2;
+		Row wide = new Row(fruits);
+		assert (wide.mirrored().mirrored().equals(wide) && wide.complemented().complemented().equals(wide)
+				&& wide.mirrored().toString().equals(new StringBuilder(wide.toString()).reverse().toString()))
+				: "\nThe symmetries of the row " + wide + " are wrong.";
+		System.out.println("[OK]");
+
+		// the memo only holds representatives of the orbits
+		System.out.print("Test of the memo of CountConfigurationsHashTable on orbits ... ");
+		for (int n = 2; n <= 9; n++) {
+			CountConfigurationsHashTable.memo.clear();
+			CountConfigurationsHashTable.count(n);
+			int orbits = Symmetry.of(n).pairRepresentatives.length;
+			int pairs = Compatibility.of(n).size * Compatibility.of(n).size;
+			assert (CountConfigurationsHashTable.memo.size() <= orbits * (n - 2)) : "\nThe memo of size " + n + "x" + n
+					+ " holds " + CountConfigurationsHashTable.memo.size() + " entries for " + orbits + " orbits.";
+			if (n == 9)
+				System.out.println("[OK] (" + orbits + " orbits instead of " + pairs + " pairs for 9 columns)");
+		}
+	}
+}
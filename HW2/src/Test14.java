@@ -0,0 +1,41 @@
+public class Test14 {
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test14.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// the broken profile gives the same counts as the dynamic programming
+		System.out.print("Test of the method count of CountConfigurationsBrokenProfile ... ");
+		for (int width = 0; width <= 7; width++)
+			for (int height = 0; height <= 9; height++) {
+				long res = CountConfigurationsBrokenProfile.count(width, height);
+				long expected = CountConfigurationsDynamicProgramming.count(width, height);
+				assert (res == expected) : "\nThere are " + expected + " stable configurations of " + height
+						+ " lines and " + width + " columns modulo 2^64, not " + res + ".";
+			}
+		for (int width = 1; width <= 5; width++) {
+			long modulus = (1L << 61) - 1;
+			long res = CountConfigurationsBrokenProfile.count(width, 50, modulus);
+			long expected = CountConfigurationsDynamicProgramming.count(width, 50, modulus);
+			assert (res == expected) : "\nThere are " + expected + " stable configurations of 50 lines and " + width
+					+ " columns modulo 2^61 - 1, not " + res + ".";
+		}
+		System.out.println("[OK]");
+
+		// wide grids
+		for (int n = 10; n <= 14; n += 2) {
+			long startTime = System.nanoTime();
+			long res = CountConfigurationsBrokenProfile.count(n, n);
+			long endTime = System.nanoTime();
+			System.out.println("    Compute the number of grids of size " + n + "x" + n + " ... "
+					+ Long.toUnsignedString(res) + " modulo 2^64 (time of calculating : "
+					+ String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms)");
+			assert (n > 12 || res == CountConfigurationsDynamicProgramming.count(n)) : "\nThe broken profile and the "
+					+ "dynamic programming disagree for size " + n + "x" + n + ".";
+		}
+	}
+}
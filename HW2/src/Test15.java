@@ -0,0 +1,65 @@
+import java.util.Arrays;
+
+public class Test15 {
+
+	// test the enumeration of the stable rows of width against the stable ones among all the rows
+	static void testStableRows(int width) {
+		long[] expected = new long[(int) Row.countStableRows(width)];
+		int n = 0;
+		for (long x = 0; x < 1L << width; x++) {
+			boolean stable = true;
+			for (int i = 0; i + 2 < width; i++)
+				if ((x >>> i & 1) == (x >>> (i + 1) & 1) && (x >>> i & 1) == (x >>> (i + 2) & 1))
+					stable = false;
+			if (stable) {
+				assert (n < expected.length) : "\nThere are more than " + expected.length + " stable rows of width "
+						+ width + ".";
+				expected[n++] = x;
+			}
+		}
+		assert (n == expected.length) : "\nThere are " + n + " stable rows of width " + width + ", not "
+				+ expected.length + ".";
+		assert (Arrays.equals(Row.stableRowMasks(width), expected)) : "\nThe stable rows of width " + width
+				+ " are wrong.";
+		assert (Arrays.equals(Row.stableRowStream(width).toArray(), expected)) : "\nThe stream of the stable rows of "
+				+ "width " + width + " is wrong.";
+		int i = 0;
+		for (Row r : Row.allStableRows(width))
+			assert (r.width() == width && r.bits() == expected[i++]) : "\nThe row " + r + " should be the row " + i
+					+ " of width " + width + ".";
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test15.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// test of the enumeration of the stable rows
+		System.out.print("Test of the enumeration of the stable rows ... ");
+		for (int width = 0; width <= 20; width++)
+			testStableRows(width);
+		// the count is 2 F(width + 1)
+		long f0 = 0, f1 = 1;
+		for (int width = 1; width <= Row.MAX_MASK_WIDTH; width++) {
+			long t = f1;
+			f1 = f0 + f1;
+			f0 = t;
+			assert (Row.countStableRows(width) == 2 * f1) : "\nThere are " + 2 * f1 + " stable rows of width " + width
+					+ ".";
+		}
+		assert (Row.stableRowStream(63).limit(1000).count() == 1000) : "\nThe stream of width 63 is too short.";
+		System.out.println("[OK]");
+
+		// time of the enumeration
+		for (int width : new int[] { 20, 24, 28 }) {
+			long startTime = System.nanoTime();
+			long[] masks = Row.stableRowMasks(width);
+			long endTime = System.nanoTime();
+			System.out.println("    " + masks.length + " stable rows of width " + width + " (time of calculating : "
+					+ String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms)");
+		}
+	}
+}
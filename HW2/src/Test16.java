@@ -0,0 +1,67 @@
+import java.util.concurrent.ForkJoinPool;
+
+public class Test16 {
+
+	// returns the time in ms of the parallel memoized count on a pool of parallelism threads, checking its result
+	// and that no triplet was computed twice
+	static double time(int width, int height, int parallelism, long expected) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		CountConfigurationsParallel counter = new CountConfigurationsParallel(width);
+		long startTime = System.nanoTime();
+		long res = counter.countGrids(height, pool);
+		long endTime = System.nanoTime();
+		pool.shutdown();
+		assert (res == expected) : "\nThe parallel memoized count of " + width + " columns and " + height
+				+ " lines on " + parallelism + " threads gives " + res + " instead of " + expected + ".";
+		assert (counter.computed.sum() == counter.size()) : "\n" + counter.computed.sum()
+				+ " triplets were computed for " + counter.size() + " distinct ones.";
+		return (endTime - startTime) / 1000000.0;
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test16.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// the parallel memoized count gives the same results as the dynamic programming
+		System.out.print("Test of the class CountConfigurationsParallel ... ");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int n = 0; n <= 10; n++)
+			assert (CountConfigurationsParallel.count(n, pool) == CountConfigurationsDynamicProgramming.count(n))
+					: "\nThe parallel memoized count of the grids of size " + n + " is wrong.";
+		pool.shutdown();
+		for (int width = 2; width <= 9; width++)
+			for (int height = 2; height <= 14; height++)
+				time(width, height, 1 + (width + height) % 4, CountConfigurationsDynamicProgramming.count(width, height));
+		System.out.println("[OK]");
+
+		// overhead on one thread against the serial counter with our hash table
+		long res = 0;
+		double hashTable = 0;
+		for (int run = 0; run < 2; run++) { // the first run warms up
+			CountConfigurationsHashTable.memo.clear();
+			long startTime = System.nanoTime();
+			res = CountConfigurationsHashTable.count(11);
+			hashTable = (System.nanoTime() - startTime) / 1000000.0;
+		}
+		time(11, 11, 1, res);
+		double parallel = time(11, 11, 1, res);
+		System.out.println(String.format("Overhead on one thread for 11 columns and 11 lines: %.2f ms instead of %.2f ms"
+				+ " with CountConfigurationsHashTable (x%.2f)", parallel, hashTable, parallel / hashTable));
+
+		// scaling with the number of threads
+		System.out.println("Scaling of the parallel memoized count of 12 columns and 10 lines:");
+		long expected = CountConfigurationsDynamicProgramming.count(12, 10);
+		double serial = time(12, 10, 1, expected);
+		serial = time(12, 10, 1, expected);
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int parallelism = 1; parallelism <= Math.max(32, cores); parallelism *= 2) {
+			double t = time(12, 10, parallelism, expected);
+			System.out.println(String.format("    %2d threads : %8.2f ms, speedup %.2f%s", parallelism, t, serial / t,
+					parallelism > cores ? " (only " + cores + " cores)" : ""));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Random;
+
+public class Test17 {
+
+	// test the memo against a HashMap on random keys, reopening and compacting it
+	static void testPersistentMemo(Path directory, long seed) throws IOException {
+		Random random = new Random(seed);
+		HashMap<Long, Long> expected = new HashMap<>();
+		for (int run = 0; run < 6; run++) {
+			try (PersistentMemo memo = new PersistentMemo(directory, CountConfigurationsHashTable.KEY_LAYOUT)) {
+				assert (memo.size() == expected.size()) : "\nThe memo reopened holds " + memo.size()
+						+ " keys instead of " + expected.size() + ".";
+				for (int i = 0; i < 5000; i++) {
+					long key = random.nextLong() | 1;
+					if (!expected.containsKey(key) && random.nextBoolean()) {
+						long value = random.nextLong();
+						memo.put(key, value);
+						expected.put(key, value);
+					}
+				}
+				for (long key : expected.keySet())
+					assert (memo.find(key).getAsLong() == expected.get(key)) : "\nThe value of the key " + key
+							+ " should be " + expected.get(key) + ".";
+				assert (memo.find(2).isEmpty()) : "\nThe key 2 should not be in the memo.";
+				if (run % 2 == 1) {
+					memo.compact();
+					assert (memo.indexSize() == expected.size() && memo.size() == expected.size())
+							: "\nThe compacted index holds " + memo.indexSize() + " keys instead of "
+									+ expected.size() + ".";
+				}
+			}
+			// a record torn at the end of the log is dropped
+			Files.write(directory.resolve("memo.log"), new byte[] { 1, 2, 3, 4, 5 }, StandardOpenOption.APPEND);
+		}
+	}
+
+	// test that the memo of directory cannot be opened with layout
+	static void testRefused(Path directory, long layout) {
+		try {
+			new PersistentMemo(directory, layout).close();
+			assert (false) : "\nThe memo of " + directory + " should not open with the layout "
+					+ Long.toHexString(layout) + ".";
+		} catch (IOException e) {
+		}
+	}
+
+	// deletes the files of the memo and its directory
+	static void delete(Path directory) throws IOException {
+		Files.deleteIfExists(directory.resolve("memo.log"));
+		Files.deleteIfExists(directory.resolve("memo.index"));
+		Files.deleteIfExists(directory);
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		// check that asserts are enabled
+		if (!Test17.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		Path directory = Files.createTempDirectory("memo");
+		try {
+			// test of the class PersistentMemo
+			System.out.print("Test of the class PersistentMemo ... ");
+			for (long seed = 0; seed < 5; seed++) {
+				testPersistentMemo(directory, seed);
+				delete(directory);
+			}
+			// a memo written with another layout of the keys, or a file which is not a memo, is refused
+			new PersistentMemo(directory, CountConfigurationsHashTable.KEY_LAYOUT).close();
+			testRefused(directory, CountConfigurationsHashTable.KEY_LAYOUT + 1);
+			try (PersistentMemo memo = new PersistentMemo(directory, CountConfigurationsHashTable.KEY_LAYOUT)) {
+				memo.put(1, 1);
+				memo.compact();
+			}
+			Files.delete(directory.resolve("memo.log"));
+			testRefused(directory, CountConfigurationsHashTable.KEY_LAYOUT + 1);
+			delete(directory);
+			Files.createDirectories(directory);
+			Files.write(directory.resolve("memo.log"), new byte[PersistentMemo.HEADER + 3 * PersistentMemo.RECORD]);
+			testRefused(directory, CountConfigurationsHashTable.KEY_LAYOUT);
+			delete(directory);
+			System.out.println("[OK]");
+
+			// a second run of the count starts from the counts of the first one
+			System.out.print("Test of the warm start of CountConfigurationsHashTable ... ");
+			double[] times = new double[2];
+			long[] hits = new long[2];
+			for (int run = 0; run < 2; run++) {
+				try (PersistentMemo memo = new PersistentMemo(directory, CountConfigurationsHashTable.KEY_LAYOUT)) {
+					CountConfigurationsHashTable.memo.clear();
+					CountConfigurationsHashTable.store = memo;
+					long startTime = System.nanoTime();
+					long res = CountConfigurationsHashTable.count(10);
+					times[run] = (System.nanoTime() - startTime) / 1000000.0;
+					hits[run] = memo.hits;
+					assert (res == 36133311325799774L) : "\nThere are 36133311325799774 stable configurations of "
+							+ "size 10x10, not " + res + ".";
+					if (run == 0)
+						memo.compact();
+				} finally {
+					CountConfigurationsHashTable.store = null;
+				}
+			}
+			assert (hits[0] == 0 && hits[1] > 0) : "\nThe second count should read the memo of the first one.";
+			System.out.println("[OK]");
+			System.out.println(String.format("    cold run : %.2f ms, warm run : %.2f ms", times[0], times[1]));
+		} finally {
+			delete(directory);
+		}
+	}
+}
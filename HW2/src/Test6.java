@@ -0,0 +1,74 @@
+import java.util.Random;
+
+public class Test6 {
+
+	// reference stability test, fruit by fruit
+	static boolean isStable(int[] fruits) {
+		for (int i = 0; i < fruits.length - 2; i++)
+			if (fruits[i] == fruits[i + 1] && fruits[i + 1] == fruits[i + 2])
+				return false;
+		return true;
+	}
+
+	// reference stackability test, fruit by fruit
+	static boolean areStackable(int[] f0, int[] f1, int[] f2) {
+		for (int i = 0; i < f0.length; i++)
+			if (f0[i] == f1[i] && f0[i] == f2[i])
+				return false;
+		return true;
+	}
+
+	// random row of width fruits, with long runs to exercise isStable
+	static int[] randomFruits(Random random, int width) {
+		int[] fruits = new int[width];
+		for (int i = 0; i < width; i++)
+			fruits[i] = random.nextInt(8) == 0 ? 1 - (i > 0 ? fruits[i - 1] : 0) : (i > 0 ? fruits[i - 1] : 1);
+		for (int i = 0; i < width; i++)
+			if (random.nextInt(3) == 0)
+				fruits[i] = random.nextInt(2);
+		return fruits;
+	}
+
+	// test the bit operations of Row against the reference ones for rows of the given width
+	static void testRow(Random random, int width) {
+		int[] f0 = randomFruits(random, width);
+		int[] f1 = randomFruits(random, width);
+		int[] f2 = random.nextBoolean() ? randomFruits(random, width) : f1.clone();
+		for (int i = 0; i < width; i++)
+			if (random.nextInt(4) == 0)
+				f2[i] = 1 - f0[i];
+		Row r0 = new Row(f0);
+		Row r1 = new Row(f1);
+		Row r2 = new Row(f2);
+		StringBuilder s = new StringBuilder();
+		for (int f : f0)
+			s.append(f);
+		assert (r0.toString().equals(s.toString())) : "\nThe row " + s + " is printed " + r0 + ".";
+		assert (r0.isStable() == isStable(f0)) : "\nThe row " + r0 + (isStable(f0) ? " is" : " is not") + " stable.";
+		assert (r0.areStackable(r1, r2) == areStackable(f0, f1, f2)) : "\nThe rows\n" + r0 + "\n" + r1 + "\n" + r2
+				+ "\n" + (areStackable(f0, f1, f2) ? "should " : "should not ") + "be stackable.";
+		int[] extended = java.util.Arrays.copyOf(f0, width + 1);
+		extended[width] = f1.length > 0 ? f1[0] : 1;
+		assert (r0.extendedWith(extended[width]).equals(new Row(extended))) : "\nThe row " + r0 + " extended with "
+				+ extended[width] + " is " + r0.extendedWith(extended[width]) + ".";
+		assert (r0.equals(new Row(f0.clone())) && r0.hashCode() == new Row(f0.clone()).hashCode())
+				: "\nTwo rows " + r0 + " are not equal.";
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test6.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// test of the bit operations of Row, on one long and on several
+		System.out.print("Test of the bit operations of Row ... ");
+		Random random = new Random(6);
+		for (int width = 0; width <= 200; width++)
+			for (int i = 0; i < 200; i++)
+				testRow(random, width);
+		System.out.println("[OK]");
+	}
+}
@@ -0,0 +1,139 @@
+import java.util.LinkedList;
+import java.util.Random;
+
+public class Test7 {
+
+	// test that the successors of every pair are exactly the stackable rows
+	static void testCompatibility(int width) {
+		Compatibility c = Compatibility.of(width);
+		assert (c == Compatibility.of(width)) : "\nThe compatibility of width " + width + " is computed twice.";
+		assert (c.size == Row.allStableRows(width).size()) : "\nThere are " + c.size + " rows of width " + width + ".";
+		for (int j = 0; j < c.size; j++)
+			for (int k = 0; k < c.size; k++) {
+				long l = c.nextSuccessor(j, k, -1);
+				for (long x = 0; x < 1L << width; x++)
+					if (new Row(width, x).areStackable(c.rows[j], c.rows[k]) && new Row(width, x).isStable()) {
+						assert (l == x) : "\nThe row " + new Row(width, x) + " is missing from the successors of "
+								+ c.rows[j] + " and " + c.rows[k] + ".";
+						l = c.nextSuccessor(j, k, l);
+					}
+				assert (l == -1) : "\nThe pair " + c.rows[j] + " and " + c.rows[k] + " has too many successors.";
+				if (width <= Compatibility.MAX_LISTED_WIDTH) {
+					l = c.nextSuccessor(j, k, -1);
+					for (int i = c.start[j * c.size + k]; i < c.start[j * c.size + k + 1]; i++) {
+						assert (c.masks[c.next[i]] == l) : "\nThe stored successors of " + c.rows[j] + " and "
+								+ c.rows[k] + " differ from the generated ones.";
+						l = c.nextSuccessor(j, k, l);
+					}
+					assert (l == -1) : "\nThe pair " + c.rows[j] + " and " + c.rows[k] + " misses stored successors.";
+				} else
+					assert (c.start == null) : "\nThe successors of width " + width + " are stored.";
+				assert (c.indexOf(c.rows[j]) == j) : "\nThe index of " + c.rows[j] + " is not " + j + ".";
+			}
+		for (long x = 0; x < 1L << width; x++)
+			assert (new Row(width, x).isStable() || c.indexOf(x) == -1) : "\nThe unstable row " + new Row(width, x)
+					+ " has an index.";
+	}
+
+	// number of grids whose first lines are r1 and r2 and whose other lines are in rows, by a scan of rows
+	static long scan(Row r1, Row r2, LinkedList<Row> rows, int height) {
+		if (height <= 1)
+			return 0;
+		if (height == 2)
+			return 1;
+		long counter = 0;
+		for (Row row : rows)
+			if (row.areStackable(r1, r2))
+				counter += scan(r2, row, rows, height - 1);
+		return counter;
+	}
+
+	// test the counters on lists of rows, which may not be all the stable rows, against the scan
+	static void testRowLists(int width, long seed) {
+		Random random = new Random(seed);
+		LinkedList<Row> rows = new LinkedList<>();
+		switch ((int) (seed % 3)) {
+		case 0: // all the stable rows
+			rows = Row.allStableRows(width);
+			break;
+		case 1: // some of them
+			for (Row r : Row.allStableRows(width))
+				if (random.nextBoolean())
+					rows.add(r);
+			break;
+		default: // any rows, repeated or not
+			for (int i = 0; i < 10; i++)
+				rows.add(new Row(width, random.nextInt(1 << width)));
+		}
+		for (int t = 0; t < 10; t++) {
+			Row r1 = new Row(width, random.nextInt(1 << width));
+			Row r2 = new Row(width, random.nextInt(1 << width));
+			for (int height = 0; height <= 5; height++) {
+				long expected = scan(r1, r2, rows, height);
+				String grid = " of the grids of height " + height + " on " + r1 + " and " + r2 + " with the rows "
+						+ rows + " is not " + expected + ".";
+				assert (CountConfigurationsNaive.count(r1, r2, rows, height) == expected) : "\nThe naive count" + grid;
+				assert (CountConfigurationsHashTable.count(r1, r2, rows, height) == expected)
+						: "\nThe count with our hash table" + grid;
+				assert (CountConfigurationsHashMap.count(r1, r2, rows, height) == expected)
+						: "\nThe count with the HashMap" + grid;
+			}
+		}
+	}
+
+	// test of the method count of CountConfigurationsDynamicProgramming
+	static void testCount(int n, long o) {
+		System.out.print("    Compute the number of grids of size " + n + "x" + n + " ... ");
+		long startTime = System.nanoTime();
+		long res = CountConfigurationsDynamicProgramming.count(n);
+		long endTime = System.nanoTime();
+		System.out.println(
+				res + " (time of calculating : " + String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms)");
+		assert (res == o) : "\nThere are " + o + " stable configurations of size " + n + "x" + n + ".";
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test7.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// test of the class Compatibility
+		System.out.print("Test of the class Compatibility ... ");
+		for (int width = 0; width <= 8; width++)
+			testCompatibility(width);
+		// the rows of the widths above Compatibility.MAX_RANK_WIDTH are found by dichotomy
+		Compatibility wide = Compatibility.of(Compatibility.MAX_RANK_WIDTH + 1);
+		for (int j = 0; j < wide.size; j += 97)
+			assert (wide.indexOf(wide.rows[j]) == j && wide.indexOf(wide.masks[j] + 1) != j)
+					: "\nThe index of " + wide.rows[j] + " is not " + j + ".";
+		assert (wide.start == null) : "\nThe successors of width " + wide.width + " are stored.";
+		System.out.println("[OK]");
+
+		// test of the counters on lists of rows
+		System.out.print("Test of the counters on lists of rows ... ");
+		LinkedList<Row> single = new LinkedList<>();
+		single.add(new Row(new int[] { 0, 1, 0 }));
+		assert (CountConfigurationsNaive.count(new Row(new int[] { 0, 1, 0 }), new Row(new int[] { 1, 0, 1 }), single,
+				4) == 1) : "\nThere is 1 grid of height 4 on 010 and 101 with the rows [010].";
+		assert (CountConfigurationsHashMap.count(new Row(new int[] { 0, 0, 0 }), new Row(new int[] { 1, 0, 1 }),
+				Row.allStableRows(3), 3) == 3) : "\nThere are 3 grids on the unstable row 000 and 101.";
+		for (int width = 1; width <= 6; width++)
+			for (long seed = 0; seed < 6; seed++)
+				testRowLists(width, seed);
+		System.out.println("[OK]");
+
+		// test of the counters on the compatibility
+		System.out.println("Test of the method count(int n) of CountConfigurationsDynamicProgramming ... ");
+		long[] nums = new long[] { 1L, 2L, 16L, 102L, 2030L, 60232L, 3858082L, 446672706L, 101578277384L,
+				43680343039806L, 36133311325799774L };
+		for (int n = 0; n <= 10; ++n)
+			testCount(n, nums[n]);
+		for (int n = 0; n <= 6; ++n)
+			assert (CountConfigurationsNaive.count(n) == nums[n]) : "\nThe naive count of size " + n + "x" + n
+					+ " is not " + nums[n] + ".";
+		System.out.println("[OK]");
+	}
+}
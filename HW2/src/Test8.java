@@ -0,0 +1,60 @@
+public class Test8 {
+
+	// number of grids of height lines and width columns, with the recursive counter
+	static long naive(int width, int height) {
+		if (height == 0)
+			return 1;
+		Compatibility c = Compatibility.of(width);
+		if (height == 1)
+			return c.size;
+		long counter = 0;
+		for (int j = 0; j < c.size; j++)
+			for (int k = 0; k < c.size; k++)
+				counter += CountConfigurationsNaive.count(j, k, c, height);
+		return counter;
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test8.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// test of the rectangular grids
+		System.out.print("Test of the method count(int width, int height) of CountConfigurationsDynamicProgramming ... ");
+		for (int width = 0; width <= 5; width++)
+			for (int height = 0; height <= 7; height++) {
+				long res = CountConfigurationsDynamicProgramming.count(width, height);
+				assert (res == naive(width, height)) : "\nThere are " + naive(width, height)
+						+ " stable configurations of " + height + " lines and " + width + " columns, not " + res + ".";
+			}
+		System.out.println("[OK]");
+
+		// the widths 15 and 16 run within a heap of 256 MB, as with java -Xmx256m -ea Test8
+		for (int width = 15; width <= 16; width++) {
+			long startTime = System.nanoTime();
+			long res = CountConfigurationsDynamicProgramming.count(width, 4);
+			long endTime = System.nanoTime();
+			long footprint = CountConfigurationsDynamicProgramming.footprint(width);
+			assert (res == CountConfigurationsDynamicProgramming.count(4, width)) : "\nThere are "
+					+ CountConfigurationsDynamicProgramming.count(4, width) + " stable configurations of 4 lines and "
+					+ width + " columns, not " + res + ".";
+			assert (footprint < 128L << 20) : "\nThe count of " + width + " columns needs " + footprint + " bytes.";
+			System.out.println("    " + width + " columns and 4 lines: " + res + " (time of calculating : "
+					+ String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms, peak footprint : " + footprint
+					+ " bytes)");
+		}
+
+		// the memory does not depend on the height
+		for (int width = 6; width <= 10; width += 2) {
+			long startTime = System.nanoTime();
+			long res = CountConfigurationsDynamicProgramming.count(width, 1000);
+			long endTime = System.nanoTime();
+			System.out.println("    " + width + " columns and 1000 lines: " + Long.toUnsignedString(res) + " modulo 2^64 (time of calculating : "
+					+ String.format("%.2f", (endTime - startTime) / 1000000.0) + " ms, peak footprint : "
+					+ CountConfigurationsDynamicProgramming.footprint(width) + " bytes)");
+		}
+	}
+}
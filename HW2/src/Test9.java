@@ -0,0 +1,44 @@
+import java.util.concurrent.ForkJoinPool;
+
+public class Test9 {
+
+	// returns the time in ms of the parallel count on a pool of parallelism threads, checking its result
+	static double time(int width, int height, int parallelism, long expected) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		long startTime = System.nanoTime();
+		long res = CountConfigurationsDynamicProgramming.count(width, height, pool);
+		long endTime = System.nanoTime();
+		pool.shutdown();
+		assert (res == expected) : "\nThe parallel count on " + parallelism + " threads gives " + res + " instead of "
+				+ expected + ".";
+		return (endTime - startTime) / 1000000.0;
+	}
+
+	public static void main(String[] args) {
+
+		// check that asserts are enabled
+		if (!Test9.class.desiredAssertionStatus()) {
+			System.err.println("You must pass the option -ea to the virtual machine Java.");
+			System.exit(1);
+		}
+
+		// the parallel count gives the same results as the serial one
+		System.out.print("Test of the method count(int width, int height, ForkJoinPool pool) ... ");
+		for (int width = 0; width <= 9; width++)
+			for (int height = 0; height <= 12; height++)
+				time(width, height, 1 + (width + height) % 4, CountConfigurationsDynamicProgramming.count(width, height));
+		System.out.println("[OK]");
+
+		// scaling with the number of threads
+		System.out.println("Scaling of the parallel count of 12 columns and 20 lines:");
+		long expected = CountConfigurationsDynamicProgramming.count(12, 20);
+		double serial = time(12, 20, 1, expected);
+		serial = time(12, 20, 1, expected);
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int parallelism = 1; parallelism <= Math.max(16, cores); parallelism *= 2) {
+			double t = time(12, 20, parallelism, expected);
+			System.out.println(String.format("    %2d threads : %8.2f ms, speedup %.2f%s", parallelism, t, serial / t,
+					parallelism > cores ? " (only " + cores + " cores)" : ""));
+		}
+	}
+}